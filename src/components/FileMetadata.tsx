@@ -178,6 +178,14 @@ const FileMetadata = ({ metadata, isLoading }: FileMetadataProps) => {
                           {column.statistics.max !== undefined && (
                             <div>Max: {column.statistics.max}</div>
                           )}
+                          {column.statistics.topValues && column.statistics.topValues.length > 0 && (
+                            <div className="col-span-2 truncate">
+                              Top values: {column.statistics.topValues
+                                .slice(0, 3)
+                                .map(v => `${v.value} (${v.count})`)
+                                .join(', ')}
+                            </div>
+                          )}
                         </div>
                       )}
                     </div>
@@ -0,0 +1,116 @@
+package com.parquetviewer.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.parquetviewer.cache.DiskCache;
+import com.parquetviewer.cache.ParquetCache;
+import com.parquetviewer.config.AdmissionConfig;
+import com.parquetviewer.config.AggregateConfig;
+import com.parquetviewer.config.CacheConfig;
+import com.parquetviewer.config.CatalogConfig;
+import com.parquetviewer.config.DatasetConfig;
+import com.parquetviewer.config.DiskCacheConfig;
+import com.parquetviewer.config.ExportConfig;
+import com.parquetviewer.config.ProfileConfig;
+import com.parquetviewer.config.S3ClientConfig;
+import com.parquetviewer.config.ScanConfig;
+import com.parquetviewer.config.SortConfig;
+import com.parquetviewer.metrics.ParquetMetrics;
+import com.parquetviewer.model.ParquetFile;
+import com.parquetviewer.service.DatasetService;
+import com.parquetviewer.service.FileCatalogService;
+import com.parquetviewer.service.ParquetFooterReader;
+import com.parquetviewer.service.ParquetService;
+import com.parquetviewer.service.ParquetServiceImpl;
+import com.parquetviewer.service.ProfileService;
+import com.parquetviewer.service.RequestCoalescer;
+import com.parquetviewer.service.RequestLimiter;
+import com.parquetviewer.service.ScanScheduler;
+import com.parquetviewer.service.SortEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * The service wired by hand the way Spring wires it, over an {@link InMemoryS3Client},
+ * with temporary directories under the given root. Background profiling is off so it
+ * never competes with the code being measured, and the disk cache is off so every read
+ * reaches the stub.
+ */
+public final class BenchmarkServices implements AutoCloseable {
+
+    static final String BUCKET = "benchmark";
+    static final String PREFIX = "files/";
+
+    private final InMemoryS3Client s3Client = new InMemoryS3Client();
+    private final ScanScheduler scanScheduler;
+    private final FileCatalogService catalog;
+    private final ProfileService profileService;
+    private final DatasetService datasetService;
+    private final ParquetService parquetService;
+
+    public BenchmarkServices(Path root, boolean cacheRanges) throws IOException {
+        S3ClientConfig s3ClientConfig = new S3ClientConfig();
+        s3ClientConfig.setBucketName(BUCKET);
+        s3ClientConfig.setPrefix(PREFIX);
+        CacheConfig cacheConfig = new CacheConfig();
+        cacheConfig.setCacheRanges(cacheRanges);
+        ExportConfig exportConfig = new ExportConfig();
+        exportConfig.setJobDirectory(root.resolve("exports").toString());
+        SortConfig sortConfig = new SortConfig();
+        sortConfig.setDirectory(root.resolve("sort").toString());
+        ProfileConfig profileConfig = new ProfileConfig();
+        profileConfig.setDirectory(root.resolve("profiles").toString());
+        profileConfig.setAutoStart(false);
+        DiskCacheConfig diskCacheConfig = new DiskCacheConfig();
+        diskCacheConfig.setEnabled(false);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        ParquetMetrics metrics = new ParquetMetrics(new SimpleMeterRegistry());
+        ParquetCache cache = new ParquetCache(cacheConfig);
+        this.scanScheduler = new ScanScheduler(new ScanConfig());
+        this.catalog = new FileCatalogService(s3ClientConfig, s3Client, new CatalogConfig(), cache,
+                new DiskCache(diskCacheConfig, metrics), metrics);
+        ParquetFooterReader footerReader = new ParquetFooterReader(s3ClientConfig, cache);
+        SortEngine sortEngine = new SortEngine(scanScheduler, sortConfig, metrics);
+        this.profileService = new ProfileService(catalog, footerReader, scanScheduler, objectMapper,
+                profileConfig, metrics);
+        this.datasetService = new DatasetService(s3ClientConfig, catalog, footerReader,
+                new DatasetConfig());
+        AdmissionConfig admissionConfig = new AdmissionConfig();
+        this.parquetService = new ParquetServiceImpl(footerReader, cache, catalog, objectMapper, scanScheduler,
+                exportConfig, sortEngine, profileService, new AggregateConfig(), datasetService, metrics,
+                new RequestCoalescer(admissionConfig, metrics), new RequestLimiter(admissionConfig, metrics));
+    }
+
+    // Uploads a local file to the stub; call refresh() once every file is in place
+    public void put(String name, Path path) throws IOException {
+        s3Client.putFile(PREFIX + name, path);
+    }
+
+    public void refresh() {
+        catalog.refresh();
+    }
+
+    public String fileId(String name) {
+        for (ParquetFile file : catalog.getFiles()) {
+            if (file.getName().equals(name)) {
+                return file.getId();
+            }
+        }
+        throw new IllegalArgumentException("No benchmark file named " + name);
+    }
+
+    public ParquetService getParquetService() {
+        return parquetService;
+    }
+
+    @Override
+    public void close() {
+        scanScheduler.shutdown();
+        catalog.shutdown();
+        profileService.shutdown();
+        datasetService.shutdown();
+        s3Client.close();
+    }
+}
@@ -0,0 +1,121 @@
+package com.parquetviewer.benchmark;
+
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CommonPrefix;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-process stand-in for S3 serving objects from heap. Only what the service calls is
+ * implemented: LIST with prefix and delimiter, and GET with a single byte range. The
+ * bucket is ignored, so benchmarks measure decoding and encoding rather than the network.
+ */
+public class InMemoryS3Client implements S3Client {
+
+    private final NavigableMap<String, byte[]> objects = new ConcurrentSkipListMap<>();
+    private final Instant lastModified = Instant.now();
+
+    public void putFile(String key, Path path) throws IOException {
+        objects.put(key, Files.readAllBytes(path));
+    }
+
+    @Override
+    public ListObjectsV2Response listObjectsV2(ListObjectsV2Request request) {
+        String prefix = request.prefix() == null ? "" : request.prefix();
+        String delimiter = request.delimiter();
+        List<S3Object> contents = new ArrayList<>();
+        TreeSet<String> prefixes = new TreeSet<>();
+        for (Map.Entry<String, byte[]> entry : objects.tailMap(prefix, true).entrySet()) {
+            String key = entry.getKey();
+            if (!key.startsWith(prefix)) {
+                break;
+            }
+            int cut = delimiter == null ? -1 : key.indexOf(delimiter, prefix.length());
+            if (cut >= 0) {
+                prefixes.add(key.substring(0, cut + delimiter.length()));
+            } else {
+                contents.add(S3Object.builder()
+                        .key(key)
+                        .size((long) entry.getValue().length)
+                        .lastModified(lastModified)
+                        .eTag(etagOf(key))
+                        .build());
+            }
+        }
+
+        List<CommonPrefix> commonPrefixes = new ArrayList<>();
+        for (String commonPrefix : prefixes) {
+            commonPrefixes.add(CommonPrefix.builder().prefix(commonPrefix).build());
+        }
+        return ListObjectsV2Response.builder()
+                .contents(contents)
+                .commonPrefixes(commonPrefixes)
+                .keyCount(contents.size())
+                .isTruncated(false)
+                .build();
+    }
+
+    @Override
+    public <ReturnT> ReturnT getObject(GetObjectRequest request,
+                                       ResponseTransformer<GetObjectResponse, ReturnT> transformer) {
+        byte[] data = objects.get(request.key());
+        if (data == null) {
+            throw NoSuchKeyException.builder().message("No such key: " + request.key()).build();
+        }
+
+        // Only the "bytes=start-end" form the readers send is understood
+        int start = 0;
+        int end = data.length - 1;
+        if (request.range() != null) {
+            String[] bounds = request.range().substring("bytes=".length()).split("-", 2);
+            start = Integer.parseInt(bounds[0]);
+            end = Math.min(end, Integer.parseInt(bounds[1]));
+        }
+        int length = end - start + 1;
+
+        GetObjectResponse response = GetObjectResponse.builder()
+                .contentLength((long) length)
+                .contentRange("bytes " + start + "-" + end + "/" + data.length)
+                .eTag(etagOf(request.key()))
+                .build();
+        try {
+            return transformer.transform(response,
+                    AbortableInputStream.create(new ByteArrayInputStream(data, start, length)));
+        } catch (Exception e) {
+            throw SdkClientException.create("Failed to transform response for " + request.key(), e);
+        }
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+        objects.clear();
+    }
+
+    private static String etagOf(String key) {
+        return "\"" + Integer.toHexString(key.hashCode()) + "\"";
+    }
+}
@@ -0,0 +1,95 @@
+package com.parquetviewer.benchmark;
+
+import com.parquetviewer.io.LocalInputFile;
+import com.parquetviewer.reader.RowBatch;
+import com.parquetviewer.reader.VectorizedParquetReader;
+import org.apache.parquet.ParquetReadOptions;
+import org.apache.parquet.bytes.DirectByteBufferAllocator;
+import org.apache.parquet.bytes.HeapByteBufferAllocator;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.schema.MessageType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Column-wise decode of a whole local file through {@link LocalInputFile}, mapped or
+ * read through the channel, with column chunks read into heap or direct buffers.
+ * Nested files are left out, since only flat columns are decoded column-wise.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {
+        "--add-exports", "java.base/sun.nio.ch=ALL-UNNAMED",
+        "--add-opens", "java.base/java.net=ALL-UNNAMED"})
+public class LocalReadBenchmark {
+
+    @Param({"NARROW", "WIDE", "PLAIN"})
+    public SyntheticParquet.Shape shape;
+
+    @Param("1000000")
+    public long rows;
+
+    @Param({"true", "false"})
+    public boolean mapped;
+
+    @Param({"false", "true"})
+    public boolean direct;
+
+    private Path file;
+    private LocalInputFile inputFile;
+    private MessageType schema;
+    private ParquetReadOptions options;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("parquet-viewer-benchmark", ".parquet");
+        SyntheticParquet.write(shape, rows, file);
+        inputFile = LocalInputFile.open(file, mapped);
+        try (ParquetFileReader reader = ParquetFileReader.open(inputFile)) {
+            schema = reader.getFileMetaData().getSchema();
+        }
+        options = ParquetReadOptions.builder()
+                .withAllocator(direct ? new DirectByteBufferAllocator() : new HeapByteBufferAllocator())
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        inputFile.close();
+        Files.deleteIfExists(file);
+        // Hadoop's local file system leaves a checksum file next to what it writes
+        Files.deleteIfExists(file.resolveSibling("." + file.getFileName() + ".crc"));
+    }
+
+    @Benchmark
+    public long decodeFile() throws IOException {
+        long values = 0;
+        try (VectorizedParquetReader reader = new VectorizedParquetReader(inputFile, schema,
+                VectorizedParquetReader.DEFAULT_BATCH_SIZE, options)) {
+            RowBatch batch;
+            while ((batch = reader.nextBatch()) != null) {
+                values += (long) batch.size() * batch.getColumnCount();
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,135 @@
+package com.parquetviewer.benchmark;
+
+import com.parquetviewer.model.ParquetData;
+import com.parquetviewer.service.ExportFormat;
+import com.parquetviewer.service.ParquetService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end hot paths of the service over one synthetic file per shape, served from
+ * an in-process S3 stub. Range caching is off by default, so every operation goes
+ * through the ranged reads a cold request makes; footers stay cached as in production.
+ *
+ * Run with {@code mvn -Pbenchmark compile exec:exec}; results, including the GC
+ * profiler's allocation rates, are written as JSON to target/jmh-result.json.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {
+        "--add-exports", "java.base/sun.nio.ch=ALL-UNNAMED",
+        "--add-opens", "java.base/java.net=ALL-UNNAMED"})
+public class ParquetServiceBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+    private static final int CONVERT_PAGE_SIZE = 10_000;
+    // Matches every row, but forces the record reader and its per-value conversion
+    private static final String MATCH_ALL = "id >= 0";
+
+    @Param({"NARROW", "WIDE", "PLAIN", "NESTED"})
+    public SyntheticParquet.Shape shape;
+
+    @Param("100000")
+    public long rows;
+
+    @Param("false")
+    public boolean cacheRanges;
+
+    private Path root;
+    private BenchmarkServices services;
+    private ParquetService service;
+    private String fileId;
+    private int lastPage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("parquet-viewer-benchmark");
+        String name = shape.name().toLowerCase() + ".parquet";
+        Path file = root.resolve(name);
+        SyntheticParquet.write(shape, rows, file);
+
+        services = new BenchmarkServices(root, cacheRanges);
+        services.put(name, file);
+        services.refresh();
+        service = services.getParquetService();
+        fileId = services.fileId(name);
+        lastPage = (int) ((rows - 1) / PAGE_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        services.close();
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    // Filtered row count over every row group, reading only the filter column
+    @Benchmark
+    public long countRows() {
+        return service.getParquetData(fileId, 0, 1, null, MATCH_ALL, null).getTotalRows();
+    }
+
+    // The last page of the file, which skips every earlier row group
+    @Benchmark
+    public ParquetData deepPage() {
+        return service.getParquetData(fileId, lastPage, PAGE_SIZE, null, null, null);
+    }
+
+    // A large page through the record reader, where every value goes through convertAvroValueToJava
+    @Benchmark
+    public ParquetData convertValues() {
+        return service.getParquetData(fileId, 0, CONVERT_PAGE_SIZE, null, MATCH_ALL, null);
+    }
+
+    @Benchmark
+    public long exportCsv() {
+        CountingOutputStream out = new CountingOutputStream();
+        service.writeExport(fileId, ExportFormat.CSV, null, null, out);
+        return out.count;
+    }
+
+    @Benchmark
+    public long exportExcel() {
+        CountingOutputStream out = new CountingOutputStream();
+        service.writeExport(fileId, ExportFormat.EXCEL, null, null, out);
+        return out.count;
+    }
+
+    // Discards the export but returns its size, so the work cannot be optimized away
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.parquetviewer.benchmark;
+
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.avro.AvroParquetWriter;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.hadoop.util.HadoopOutputFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Writes the synthetic files the benchmarks read. Values come from a fixed seed, so a
+ * shape and row count always produce the same file. Every shape has a long {@code id}
+ * column counting up from zero, which the benchmarks filter on.
+ */
+public final class SyntheticParquet {
+
+    public enum Shape {
+        // A handful of columns; low-cardinality strings are dictionary encoded
+        NARROW,
+        // 64 mixed columns, for projection and per-column overhead
+        WIDE,
+        // The narrow columns with high-cardinality strings and dictionaries disabled
+        PLAIN,
+        // Lists and structs, which only the record reader decodes
+        NESTED
+    }
+
+    private static final int WIDE_COLUMNS = 64;
+    private static final int ROW_GROUP_BYTES = 8 * 1024 * 1024;
+    private static final String[] CATEGORIES = {
+            "alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel",
+            "india", "juliett", "kilo", "lima", "mike", "november", "oscar", "papa"
+    };
+
+    private SyntheticParquet() {
+    }
+
+    public static void write(Shape shape, long rows, Path path) throws IOException {
+        Schema schema = schemaFor(shape);
+        Configuration conf = new Configuration();
+        SplittableRandom random = new SplittableRandom(42);
+        try (ParquetWriter<GenericRecord> writer = AvroParquetWriter
+                .<GenericRecord>builder(HadoopOutputFile.fromPath(new org.apache.hadoop.fs.Path(path.toUri()), conf))
+                .withSchema(schema)
+                .withConf(conf)
+                .withCompressionCodec(CompressionCodecName.SNAPPY)
+                .withDictionaryEncoding(shape != Shape.PLAIN)
+                .withRowGroupSize(ROW_GROUP_BYTES)
+                .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
+                .build()) {
+            for (long id = 0; id < rows; id++) {
+                writer.write(recordFor(shape, schema, id, random));
+            }
+        }
+    }
+
+    private static Schema schemaFor(Shape shape) {
+        Schema timestamp = LogicalTypes.timestampMillis().addToSchema(Schema.create(Schema.Type.LONG));
+        switch (shape) {
+            case WIDE: {
+                SchemaBuilder.FieldAssembler<Schema> fields = SchemaBuilder.record("wide").fields()
+                        .requiredLong("id");
+                for (int c = 1; c < WIDE_COLUMNS; c++) {
+                    switch (c % 3) {
+                        case 0:
+                            fields = fields.optionalString("s" + c);
+                            break;
+                        case 1:
+                            fields = fields.optionalLong("l" + c);
+                            break;
+                        default:
+                            fields = fields.optionalDouble("d" + c);
+                    }
+                }
+                return fields.endRecord();
+            }
+            case NESTED: {
+                Schema address = SchemaBuilder.record("address").fields()
+                        .requiredString("city")
+                        .optionalInt("zip")
+                        .endRecord();
+                return SchemaBuilder.record("nested").fields()
+                        .requiredLong("id")
+                        .name("tags").type().array().items().stringType().noDefault()
+                        .name("address").type(address).noDefault()
+                        .name("scores").type().array().items().doubleType().noDefault()
+                        .endRecord();
+            }
+            default:
+                return SchemaBuilder.record(shape.name().toLowerCase()).fields()
+                        .requiredLong("id")
+                        .optionalString("category")
+                        .optionalDouble("amount")
+                        .name("created").type(timestamp).noDefault()
+                        .optionalBoolean("flag")
+                        .endRecord();
+        }
+    }
+
+    private static GenericRecord recordFor(Shape shape, Schema schema, long id, SplittableRandom random) {
+        GenericRecord record = new GenericData.Record(schema);
+        record.put("id", id);
+        switch (shape) {
+            case WIDE:
+                for (int c = 1; c < WIDE_COLUMNS; c++) {
+                    Object value;
+                    switch (c % 3) {
+                        case 0:
+                            value = CATEGORIES[random.nextInt(CATEGORIES.length)];
+                            break;
+                        case 1:
+                            value = random.nextLong(1_000_000);
+                            break;
+                        default:
+                            value = random.nextDouble() * 1000;
+                    }
+                    record.put(schema.getFields().get(c).name(), random.nextInt(20) == 0 ? null : value);
+                }
+                break;
+            case NESTED:
+                GenericRecord address = new GenericData.Record(schema.getField("address").schema());
+                address.put("city", CATEGORIES[random.nextInt(CATEGORIES.length)]);
+                address.put("zip", random.nextInt(10) == 0 ? null : random.nextInt(10_000, 99_999));
+                record.put("tags", Arrays.asList(CATEGORIES[(int) (id % CATEGORIES.length)],
+                        CATEGORIES[random.nextInt(CATEGORIES.length)]));
+                record.put("address", address);
+                record.put("scores", Arrays.asList(random.nextDouble(), random.nextDouble(), random.nextDouble()));
+                break;
+            default:
+                record.put("category", shape == Shape.PLAIN
+                        ? Long.toHexString(random.nextLong()) + Long.toHexString(id)
+                        : CATEGORIES[random.nextInt(CATEGORIES.length)]);
+                record.put("amount", random.nextInt(20) == 0 ? null : random.nextDouble() * 10_000);
+                record.put("created", 1_700_000_000_000L + id * 1000);
+                record.put("flag", random.nextBoolean());
+        }
+        return record;
+    }
+}
@@ -1,4 +1,4 @@
-import { ParquetFile, ParquetMetadata, ParquetData, ParquetColumn, ApiResponse } from "@/lib/types";
+import { ParquetFile, ParquetFilePage, ParquetMetadata, ParquetData, ParquetColumn, ApiResponse } from "@/lib/types";
 
 const API_BASE_URL = 'http://localhost:8080/api'; // This will be proxied to your Spring Boot backend
 
@@ -7,13 +7,25 @@ const API_BASE_URL = 'http://localhost:8080/api'; // This will be proxied to you
  */
 export async function fetchParquetFiles(): Promise<ApiResponse<ParquetFile[]>> {
   try {
-    const response = await fetch(`${API_BASE_URL}/files`);
-    
-    if (!response.ok) {
-      throw new Error(`HTTP error! Status: ${response.status}`);
-    }
-    
-    const data = await response.json();
+    const data: ParquetFile[] = [];
+    let cursor: string | null = null;
+
+    // The server returns the listing a page at a time; follow cursors to the end
+    do {
+      const params = new URLSearchParams();
+      if (cursor) {
+        params.set('cursor', cursor);
+      }
+      const response = await fetch(`${API_BASE_URL}/files?${params}`);
+
+      if (!response.ok) {
+        throw new Error(`HTTP error! Status: ${response.status}`);
+      }
+
+      const page: ParquetFilePage = await response.json();
+      data.push(...page.files);
+      cursor = page.nextCursor;
+    } while (cursor);
     
     return {
       data,
@@ -62,12 +74,23 @@ export async function fetchParquetMetadata(fileId: string): Promise<ApiResponse<
 export async function fetchParquetData(
   fileId: string, 
   page: number = 0, 
-  pageSize: number = 50
+  pageSize: number = 50,
+  columns?: string[],
+  filter?: string,
+  sort?: string
 ): Promise<ApiResponse<ParquetData>> {
   try {
-    const response = await fetch(
-      `${API_BASE_URL}/files/${fileId}/data?page=${page}&pageSize=${pageSize}`
-    );
+    const params = new URLSearchParams({ page: String(page), pageSize: String(pageSize) });
+    if (columns && columns.length > 0) {
+      params.set('columns', columns.join(','));
+    }
+    if (filter && filter.trim()) {
+      params.set('filter', filter);
+    }
+    if (sort) {
+      params.set('sort', sort);
+    }
+    const response = await fetch(`${API_BASE_URL}/files/${fileId}/data?${params}`);
     
     if (!response.ok) {
       throw new Error(`HTTP error! Status: ${response.status}`);
@@ -7,6 +7,13 @@ export interface ParquetFile {
   lastModified: string;
   columnCount: number;
   rowCount: number;
+  etag?: string;
+}
+
+export interface ParquetFilePage {
+  files: ParquetFile[];
+  nextCursor: string | null;
+  totalFiles: number;
 }
 
 export interface ParquetMetadata {
@@ -20,10 +27,21 @@ export interface ParquetMetadata {
   compression: string;
   schema: ParquetColumn[];
   rowCount: number;
+  profileStatus?: 'PENDING' | 'RUNNING' | 'COMPLETED' | 'FAILED';
   statistics?: {
     totalSize: number;
     rowGroups: number;
     averageRowGroupSize: number;
+    compressedSize?: number;
+    uncompressedSize?: number;
+    createdBy?: string;
+    rowGroupDetails?: {
+      index: number;
+      rowCount: number;
+      startingPos: number;
+      compressedSize: number;
+      uncompressedSize: number;
+    }[];
   }
 }
 
@@ -36,6 +54,12 @@ export interface ParquetColumn {
     max?: string | number;
     nullCount?: number;
     distinctCount?: number;
+    codec?: string;
+    encodings?: string[];
+    compressedSize?: number;
+    uncompressedSize?: number;
+    topValues?: { value: string; count: number }[];
+    histogram?: { lower: number; upper: number; count: number }[];
   }
 }
 
@@ -47,6 +71,17 @@ export interface ParquetData {
   pageSize: number;
 }
 
+export interface ColumnarData {
+  names: string[];
+  types: string[];
+  values: any[][];
+  nullBitmaps: (string | null)[];
+  rowCount: number;
+  totalRows: number;
+  currentPage: number;
+  pageSize: number;
+}
+
 export interface ApiResponse<T> {
   data: T;
   status: 'success' | 'error';
@@ -3,8 +3,10 @@ package com.parquetviewer;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ParquetViewerApplication {
     public static void main(String[] args) {
         SpringApplication.run(ParquetViewerApplication.class, args);
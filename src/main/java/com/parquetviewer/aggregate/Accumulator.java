@@ -0,0 +1,377 @@
+package com.parquetviewer.aggregate;
+
+import com.parquetviewer.reader.ColumnVector;
+
+import java.util.Arrays;
+
+/**
+ * Per-group state of one aggregate, held in primitive arrays indexed by group slot.
+ * A batch is folded in one column at a time, with each row's slot computed up front.
+ * Aggregates over no non-null values are null, except counts, which are zero.
+ */
+abstract class Accumulator {
+
+    abstract void grow(int capacity);
+
+    // Folds rows 0..size-1 of the column into the slots given per row; count(*) gets no column
+    abstract void add(ColumnVector column, int[] slots, int size);
+
+    abstract void merge(Accumulator other, int from, int to);
+
+    abstract Object result(int slot);
+
+    static Accumulator create(AggregateFunction function, ColumnVector.Kind kind) {
+        switch (function) {
+            case COUNT:
+                return kind == null ? new CountAll() : new CountValues();
+            case SUM:
+                return kind == ColumnVector.Kind.INT || kind == ColumnVector.Kind.LONG
+                        ? new LongSum() : new DoubleSum();
+            case AVG:
+                return new Avg();
+            default:
+                boolean max = function == AggregateFunction.MAX;
+                switch (kind) {
+                    case INT:
+                    case LONG:
+                    case BOOLEAN:
+                        return new LongMinMax(kind, max);
+                    case FLOAT:
+                    case DOUBLE:
+                        return new DoubleMinMax(kind, max);
+                    default:
+                        return new StringMinMax(max);
+                }
+        }
+    }
+
+    private static final class CountAll extends Accumulator {
+        long[] counts = new long[0];
+
+        @Override
+        void grow(int capacity) {
+            counts = Arrays.copyOf(counts, capacity);
+        }
+
+        @Override
+        void add(ColumnVector column, int[] slots, int size) {
+            for (int i = 0; i < size; i++) {
+                counts[slots[i]]++;
+            }
+        }
+
+        @Override
+        void merge(Accumulator other, int from, int to) {
+            counts[to] += ((CountAll) other).counts[from];
+        }
+
+        @Override
+        Object result(int slot) {
+            return counts[slot];
+        }
+    }
+
+    private static final class CountValues extends Accumulator {
+        long[] counts = new long[0];
+
+        @Override
+        void grow(int capacity) {
+            counts = Arrays.copyOf(counts, capacity);
+        }
+
+        @Override
+        void add(ColumnVector column, int[] slots, int size) {
+            for (int i = 0; i < size; i++) {
+                if (!column.isNull(i)) {
+                    counts[slots[i]]++;
+                }
+            }
+        }
+
+        @Override
+        void merge(Accumulator other, int from, int to) {
+            counts[to] += ((CountValues) other).counts[from];
+        }
+
+        @Override
+        Object result(int slot) {
+            return counts[slot];
+        }
+    }
+
+    private static final class LongSum extends Accumulator {
+        long[] sums = new long[0];
+        boolean[] seen = new boolean[0];
+
+        @Override
+        void grow(int capacity) {
+            sums = Arrays.copyOf(sums, capacity);
+            seen = Arrays.copyOf(seen, capacity);
+        }
+
+        @Override
+        void add(ColumnVector column, int[] slots, int size) {
+            if (column.getKind() == ColumnVector.Kind.INT) {
+                int[] values = column.ints();
+                for (int i = 0; i < size; i++) {
+                    if (!column.isNull(i)) {
+                        sums[slots[i]] += values[i];
+                        seen[slots[i]] = true;
+                    }
+                }
+            } else {
+                long[] values = column.longs();
+                for (int i = 0; i < size; i++) {
+                    if (!column.isNull(i)) {
+                        sums[slots[i]] += values[i];
+                        seen[slots[i]] = true;
+                    }
+                }
+            }
+        }
+
+        @Override
+        void merge(Accumulator other, int from, int to) {
+            LongSum sum = (LongSum) other;
+            sums[to] += sum.sums[from];
+            seen[to] |= sum.seen[from];
+        }
+
+        @Override
+        Object result(int slot) {
+            return seen[slot] ? sums[slot] : null;
+        }
+    }
+
+    private static final class DoubleSum extends Accumulator {
+        double[] sums = new double[0];
+        boolean[] seen = new boolean[0];
+
+        @Override
+        void grow(int capacity) {
+            sums = Arrays.copyOf(sums, capacity);
+            seen = Arrays.copyOf(seen, capacity);
+        }
+
+        @Override
+        void add(ColumnVector column, int[] slots, int size) {
+            for (int i = 0; i < size; i++) {
+                if (!column.isNull(i)) {
+                    sums[slots[i]] += column.getAsDouble(i);
+                    seen[slots[i]] = true;
+                }
+            }
+        }
+
+        @Override
+        void merge(Accumulator other, int from, int to) {
+            DoubleSum sum = (DoubleSum) other;
+            sums[to] += sum.sums[from];
+            seen[to] |= sum.seen[from];
+        }
+
+        @Override
+        Object result(int slot) {
+            return seen[slot] ? sums[slot] : null;
+        }
+    }
+
+    private static final class Avg extends Accumulator {
+        double[] sums = new double[0];
+        long[] counts = new long[0];
+
+        @Override
+        void grow(int capacity) {
+            sums = Arrays.copyOf(sums, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+
+        @Override
+        void add(ColumnVector column, int[] slots, int size) {
+            for (int i = 0; i < size; i++) {
+                if (!column.isNull(i)) {
+                    sums[slots[i]] += column.getAsDouble(i);
+                    counts[slots[i]]++;
+                }
+            }
+        }
+
+        @Override
+        void merge(Accumulator other, int from, int to) {
+            Avg avg = (Avg) other;
+            sums[to] += avg.sums[from];
+            counts[to] += avg.counts[from];
+        }
+
+        @Override
+        Object result(int slot) {
+            return counts[slot] == 0 ? null : sums[slot] / counts[slot];
+        }
+    }
+
+    private static final class LongMinMax extends Accumulator {
+        final ColumnVector.Kind kind;
+        final boolean max;
+        long[] values = new long[0];
+        boolean[] seen = new boolean[0];
+
+        LongMinMax(ColumnVector.Kind kind, boolean max) {
+            this.kind = kind;
+            this.max = max;
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+            seen = Arrays.copyOf(seen, capacity);
+        }
+
+        @Override
+        void add(ColumnVector column, int[] slots, int size) {
+            for (int i = 0; i < size; i++) {
+                if (column.isNull(i)) {
+                    continue;
+                }
+                long value;
+                switch (kind) {
+                    case INT:
+                        value = column.getInt(i);
+                        break;
+                    case LONG:
+                        value = column.getLong(i);
+                        break;
+                    default:
+                        value = column.getBoolean(i) ? 1 : 0;
+                }
+                accept(slots[i], value);
+            }
+        }
+
+        private void accept(int slot, long value) {
+            if (!seen[slot] || (max ? value > values[slot] : value < values[slot])) {
+                values[slot] = value;
+                seen[slot] = true;
+            }
+        }
+
+        @Override
+        void merge(Accumulator other, int from, int to) {
+            LongMinMax minMax = (LongMinMax) other;
+            if (minMax.seen[from]) {
+                accept(to, minMax.values[from]);
+            }
+        }
+
+        @Override
+        Object result(int slot) {
+            if (!seen[slot]) {
+                return null;
+            }
+            switch (kind) {
+                case INT:
+                    return (int) values[slot];
+                case LONG:
+                    return values[slot];
+                default:
+                    return values[slot] != 0;
+            }
+        }
+    }
+
+    // NaN is skipped, so it never wins a min or max
+    private static final class DoubleMinMax extends Accumulator {
+        final ColumnVector.Kind kind;
+        final boolean max;
+        double[] values = new double[0];
+        boolean[] seen = new boolean[0];
+
+        DoubleMinMax(ColumnVector.Kind kind, boolean max) {
+            this.kind = kind;
+            this.max = max;
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+            seen = Arrays.copyOf(seen, capacity);
+        }
+
+        @Override
+        void add(ColumnVector column, int[] slots, int size) {
+            for (int i = 0; i < size; i++) {
+                if (!column.isNull(i)) {
+                    accept(slots[i], column.getAsDouble(i));
+                }
+            }
+        }
+
+        private void accept(int slot, double value) {
+            if (Double.isNaN(value)) {
+                return;
+            }
+            if (!seen[slot] || (max ? value > values[slot] : value < values[slot])) {
+                values[slot] = value;
+                seen[slot] = true;
+            }
+        }
+
+        @Override
+        void merge(Accumulator other, int from, int to) {
+            DoubleMinMax minMax = (DoubleMinMax) other;
+            if (minMax.seen[from]) {
+                accept(to, minMax.values[from]);
+            }
+        }
+
+        @Override
+        Object result(int slot) {
+            if (!seen[slot]) {
+                return null;
+            }
+            return kind == ColumnVector.Kind.FLOAT ? (Object) (float) values[slot] : (Object) values[slot];
+        }
+    }
+
+    private static final class StringMinMax extends Accumulator {
+        final boolean max;
+        String[] values = new String[0];
+
+        StringMinMax(boolean max) {
+            this.max = max;
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void add(ColumnVector column, int[] slots, int size) {
+            for (int i = 0; i < size; i++) {
+                if (!column.isNull(i)) {
+                    accept(slots[i], (String) column.getObject(i));
+                }
+            }
+        }
+
+        private void accept(int slot, String value) {
+            String current = values[slot];
+            if (current == null || (max ? value.compareTo(current) > 0 : value.compareTo(current) < 0)) {
+                values[slot] = value;
+            }
+        }
+
+        @Override
+        void merge(Accumulator other, int from, int to) {
+            String value = ((StringMinMax) other).values[from];
+            if (value != null) {
+                accept(to, value);
+            }
+        }
+
+        @Override
+        Object result(int slot) {
+            return values[slot];
+        }
+    }
+}
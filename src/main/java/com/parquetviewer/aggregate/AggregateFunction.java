@@ -0,0 +1,19 @@
+package com.parquetviewer.aggregate;
+
+import java.util.Locale;
+
+public enum AggregateFunction {
+    COUNT, SUM, MIN, MAX, AVG;
+
+    public static AggregateFunction of(String name) {
+        if (name != null) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                // fall through to the message listing what is supported
+            }
+        }
+        throw new IllegalArgumentException("Invalid aggregate function: " + name
+                + ". Supported functions: count, sum, min, max, avg");
+    }
+}
@@ -0,0 +1,203 @@
+package com.parquetviewer.aggregate;
+
+import com.parquetviewer.reader.ColumnVector;
+import com.parquetviewer.reader.RowBatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash aggregation over decoded batches. Each batch is mapped to group slots first,
+ * then every aggregate folds its column into those slots in one pass. A single
+ * numeric group key is looked up in a {@link LongSlotMap} without boxing; string and
+ * composite keys go through a regular hash map.
+ *
+ * Aggregators built over separate row groups merge into the result for the file.
+ */
+public final class HashAggregator {
+
+    private final int[] keyColumns;
+    private final ColumnVector.Kind[] keyKinds;
+    private final int[] valueColumns;
+    private final Accumulator[] accumulators;
+    private final int maxGroups;
+    private final LongSlotMap longSlots;
+    private final Map<Object, Integer> objectSlots;
+    private final List<Object[]> groupKeys = new ArrayList<>();
+    private int nullSlot = -1;
+    private int capacity;
+    private int[] slots = new int[0];
+
+    /**
+     * @param keyColumns   batch column of each group key
+     * @param valueColumns batch column each aggregate reads, or -1 for count(*)
+     * @param valueKinds   kind of each aggregate's column, or null for count(*)
+     */
+    public HashAggregator(int[] keyColumns, ColumnVector.Kind[] keyKinds, AggregateFunction[] functions,
+                          int[] valueColumns, ColumnVector.Kind[] valueKinds, int maxGroups) {
+        this.keyColumns = keyColumns;
+        this.keyKinds = keyKinds;
+        this.valueColumns = valueColumns;
+        this.maxGroups = maxGroups;
+        this.accumulators = new Accumulator[functions.length];
+        for (int a = 0; a < functions.length; a++) {
+            accumulators[a] = Accumulator.create(functions[a], valueKinds[a]);
+        }
+        boolean primitiveKey = keyColumns.length == 1 && keyKinds[0] != ColumnVector.Kind.STRING;
+        this.longSlots = primitiveKey ? new LongSlotMap() : null;
+        this.objectSlots = primitiveKey ? null : new HashMap<>();
+    }
+
+    public void add(RowBatch batch) {
+        int size = batch.size();
+        if (slots.length < size) {
+            slots = new int[size];
+        }
+        if (keyColumns.length == 0) {
+            Arrays.fill(slots, 0, size, globalSlot());
+        } else if (longSlots != null) {
+            ColumnVector key = batch.column(keyColumns[0]);
+            for (int row = 0; row < size; row++) {
+                if (key.isNull(row)) {
+                    slots[row] = nullSlot();
+                    continue;
+                }
+                long bits = longKey(key, row);
+                int slot = longSlots.get(bits);
+                if (slot < 0) {
+                    slot = newSlot(new Object[] { key.getValue(row) });
+                    longSlots.put(bits, slot);
+                }
+                slots[row] = slot;
+            }
+        } else {
+            for (int row = 0; row < size; row++) {
+                Object[] values = new Object[keyColumns.length];
+                for (int k = 0; k < keyColumns.length; k++) {
+                    values[k] = batch.getValue(keyColumns[k], row);
+                }
+                slots[row] = objectSlot(values);
+            }
+        }
+
+        for (int a = 0; a < accumulators.length; a++) {
+            accumulators[a].add(valueColumns[a] < 0 ? null : batch.column(valueColumns[a]), slots, size);
+        }
+    }
+
+    public void merge(HashAggregator other) {
+        for (int from = 0; from < other.groupKeys.size(); from++) {
+            int to = slotFor(other.groupKeys.get(from));
+            for (int a = 0; a < accumulators.length; a++) {
+                accumulators[a].merge(other.accumulators[a], from, to);
+            }
+        }
+    }
+
+    public int groupCount() {
+        return groupKeys.size();
+    }
+
+    // One row per group: the key values, then each aggregate's result
+    public List<Object[]> rows() {
+        if (keyColumns.length == 0) {
+            globalSlot(); // an aggregate over no rows still has one result row
+        }
+        List<Object[]> rows = new ArrayList<>(groupKeys.size());
+        for (int slot = 0; slot < groupKeys.size(); slot++) {
+            Object[] row = Arrays.copyOf(groupKeys.get(slot), keyColumns.length + accumulators.length);
+            for (int a = 0; a < accumulators.length; a++) {
+                row[keyColumns.length + a] = accumulators[a].result(slot);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private int slotFor(Object[] keys) {
+        if (keyColumns.length == 0) {
+            return globalSlot();
+        }
+        if (longSlots == null) {
+            return objectSlot(keys);
+        }
+        if (keys[0] == null) {
+            return nullSlot();
+        }
+        long bits = longKey(keyKinds[0], keys[0]);
+        int slot = longSlots.get(bits);
+        if (slot < 0) {
+            slot = newSlot(keys);
+            longSlots.put(bits, slot);
+        }
+        return slot;
+    }
+
+    private int objectSlot(Object[] values) {
+        Object key = values.length == 1 ? values[0] : Arrays.asList(values);
+        Integer slot = objectSlots.get(key);
+        if (slot == null) {
+            slot = newSlot(values);
+            objectSlots.put(key, slot);
+        }
+        return slot;
+    }
+
+    private int globalSlot() {
+        return groupKeys.isEmpty() ? newSlot(new Object[0]) : 0;
+    }
+
+    private int nullSlot() {
+        if (nullSlot < 0) {
+            nullSlot = newSlot(new Object[] { null });
+        }
+        return nullSlot;
+    }
+
+    private int newSlot(Object[] keys) {
+        if (groupKeys.size() >= maxGroups) {
+            throw new IllegalArgumentException("Aggregation produces more than " + maxGroups
+                    + " groups; group by fewer or coarser columns");
+        }
+        int slot = groupKeys.size();
+        groupKeys.add(keys);
+        if (slot >= capacity) {
+            capacity = Math.max(16, capacity * 2);
+            for (Accumulator accumulator : accumulators) {
+                accumulator.grow(capacity);
+            }
+        }
+        return slot;
+    }
+
+    // Floating keys compare by bit pattern, with -0.0 folded into 0.0
+    private static long longKey(ColumnVector column, int row) {
+        switch (column.getKind()) {
+            case INT:
+                return column.getInt(row);
+            case LONG:
+                return column.getLong(row);
+            case BOOLEAN:
+                return column.getBoolean(row) ? 1 : 0;
+            default:
+                double value = column.getAsDouble(row);
+                return Double.doubleToLongBits(value == 0 ? 0.0 : value);
+        }
+    }
+
+    private static long longKey(ColumnVector.Kind kind, Object value) {
+        switch (kind) {
+            case INT:
+            case LONG:
+                return ((Number) value).longValue();
+            case BOOLEAN:
+                return (Boolean) value ? 1 : 0;
+            default:
+                double number = ((Number) value).doubleValue();
+                return Double.doubleToLongBits(number == 0 ? 0.0 : number);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.parquetviewer.aggregate;
+
+/**
+ * Open-addressing map from a primitive long key to a group slot, so grouping on one
+ * numeric column neither boxes keys nor allocates per row.
+ */
+final class LongSlotMap {
+
+    private long[] keys = new long[64];
+    private int[] slots = new int[64];   // slot + 1; zero marks an empty cell
+    private int size;
+
+    int get(long key) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            if (slots[i] == 0) {
+                return -1;
+            }
+            if (keys[i] == key) {
+                return slots[i] - 1;
+            }
+        }
+    }
+
+    void put(long key, int slot) {
+        if (2 * (size + 1) > keys.length) {
+            rehash(keys.length * 2);
+        }
+        insert(key, slot);
+        size++;
+    }
+
+    private void insert(long key, int slot) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (slots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        slots[i] = slot + 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldSlots = slots;
+        keys = new long[capacity];
+        slots = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldSlots[i] != 0) {
+                insert(oldKeys[i], oldSlots[i] - 1);
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
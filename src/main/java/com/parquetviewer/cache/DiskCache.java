@@ -0,0 +1,445 @@
+package com.parquetviewer.cache;
+
+import com.parquetviewer.config.DiskCacheConfig;
+import com.parquetviewer.io.LocalInputFile;
+import com.parquetviewer.io.RangeCache;
+import com.parquetviewer.metrics.ParquetMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Local disk tier beneath the in-memory range cache, so the hot set is fetched from S3
+ * once rather than once per request, and survives restarts. Each range read is kept as
+ * its own file, so a page view still transfers only what it touches. Objects up to
+ * {@code maxObjectBytes}, when set, are instead downloaded whole on their first read and
+ * served from a memory mapping. Entries are named after bucket, key and ETag, so a
+ * rewritten object never serves stale bytes.
+ *
+ * A fetched range is returned from memory and written to disk on the way, so a cold read
+ * costs no more than the GET. Files are written under a temporary name and renamed, so an
+ * interrupted write leaves at most a partial file, which the next startup deletes before
+ * re-indexing the complete ones in order of last use. Nothing is synced: an entry lost in
+ * a crash is simply fetched again. Concurrent misses of one entry share a single fetch,
+ * and the least recently used entries are evicted once the directory exceeds {@code maxBytes}.
+ */
+@Component
+@Slf4j
+public class DiskCache {
+
+    private static final int NAME_LENGTH = 32;
+
+    // Only files this cache wrote are ever indexed or deleted
+    private static final Pattern ENTRY = Pattern.compile("[0-9a-f]{32}(\\.obj|-\\d+-\\d+\\.rng)");
+    private static final Pattern PART = Pattern.compile("[0-9a-f]{32}(\\.obj|-\\d+-\\d+\\.rng)\\.part");
+
+    private final DiskCacheConfig config;
+    private final Path directory;
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, LocalInputFile> openObjects = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Path>> loading = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<byte[]>> loadingRanges = new ConcurrentHashMap<>();
+    private long usedBytes;
+
+    @Autowired
+    public DiskCache(DiskCacheConfig config, ParquetMetrics metrics) throws IOException {
+        this.config = config;
+        this.directory = Paths.get(config.getDirectory());
+        if (!config.isEnabled()) {
+            return;
+        }
+        Files.createDirectories(directory);
+        metrics.monitorDirectory("disk_cache", directory);
+        reindex();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (LocalInputFile object : openObjects.values()) {
+            closeQuietly(object);
+        }
+        openObjects.clear();
+    }
+
+    /**
+     * Layers the disk under an object's memory range cache, which may be null. Returns the
+     * memory cache unchanged when the disk tier is disabled or the object has no ETag.
+     */
+    public RangeCache tier(String bucket, String key, String etag, long objectLength, RangeCache memory) {
+        if (!config.isEnabled() || etag == null) {
+            return memory;
+        }
+        String base = nameFor(bucket + "/" + key + "\n" + etag);
+        boolean whole = config.getMaxObjectBytes() > 0
+                && objectLength <= Math.min(config.getMaxObjectBytes(), config.getMaxBytes());
+        return new RangeCache() {
+            @Override
+            public boolean accepts(int length) {
+                return whole || length <= config.getMaxRangeBytes() || (memory != null && memory.accepts(length));
+            }
+
+            @Override
+            public byte[] get(long offset, int length) {
+                byte[] data = memory == null ? null : memory.get(offset, length);
+                if (data == null) {
+                    data = readCached(base, whole, offset, length);
+                    if (data != null && memory != null) {
+                        memory.put(offset, data);
+                    }
+                }
+                return data;
+            }
+
+            @Override
+            public void put(long offset, byte[] data) {
+                if (memory != null) {
+                    memory.put(offset, data);
+                }
+                if (!whole && data.length <= config.getMaxRangeBytes()) {
+                    String name = rangeName(base, offset, data.length);
+                    // Registered as a finished load, so a concurrent miss takes these bytes instead of writing too
+                    CompletableFuture<byte[]> stored = CompletableFuture.completedFuture(data);
+                    if (!isCached(name) && loadingRanges.putIfAbsent(name, stored) == null) {
+                        try {
+                            store(name, data);
+                        } finally {
+                            loadingRanges.remove(name, stored);
+                        }
+                    }
+                }
+            }
+
+            @Override
+            public byte[] load(long offset, int length, Loader loader) throws IOException {
+                byte[] data = memory == null ? null : memory.get(offset, length);
+                if (data != null) {
+                    return data;
+                }
+                if (whole) {
+                    data = readObject(base + ".obj", objectLength, offset, length, loader);
+                } else if (length <= config.getMaxRangeBytes()) {
+                    data = readRange(rangeName(base, offset, length), offset, length, loader);
+                } else {
+                    data = new byte[length];
+                    try (InputStream in = loader.open(offset, length)) {
+                        RangeCache.readFully(in, data);
+                    }
+                }
+                if (memory != null) {
+                    memory.put(offset, data);
+                }
+                return data;
+            }
+        };
+    }
+
+    private byte[] readObject(String name, long objectLength, long offset, int length, RangeCache.Loader loader)
+            throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                if (!isCached(name)) {
+                    fetch(name, 0, objectLength, loader);
+                }
+                LocalInputFile object = openObject(name);
+                byte[] data = new byte[length];
+                object.read(offset, ByteBuffer.wrap(data));
+                return data;
+            } catch (NoSuchFileException e) {
+                // Evicted between the lookup and the open; fetch it again once
+                forget(name);
+                if (attempt > 0) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a range from disk, or fetches it, hands the bytes back and keeps a copy on disk.
+     * Concurrent callers for the same range wait for one fetch.
+     */
+    private byte[] readRange(String name, long offset, int length, RangeCache.Loader loader) throws IOException {
+        if (isCached(name)) {
+            try {
+                return Files.readAllBytes(directory.resolve(name));
+            } catch (NoSuchFileException e) {
+                // Evicted between the lookup and the read; fetch it again
+                forget(name);
+            }
+        }
+        CompletableFuture<byte[]> fetch = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = loadingRanges.putIfAbsent(name, fetch);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            byte[] data = new byte[length];
+            try (InputStream in = loader.open(offset, length)) {
+                RangeCache.readFully(in, data);
+            }
+            store(name, data);
+            fetch.complete(data);
+            return data;
+        } catch (IOException | RuntimeException e) {
+            fetch.completeExceptionally(e);
+            throw e;
+        } finally {
+            loadingRanges.remove(name, fetch);
+        }
+    }
+
+    // Writes a range entry; a failure only means the next read fetches it again
+    private void store(String name, byte[] data) {
+        if (isCached(name)) {
+            return;
+        }
+        Path part = directory.resolve(name + ".part");
+        try {
+            Files.write(part, data);
+            Files.move(part, directory.resolve(name), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            register(name, data.length);
+        } catch (IOException e) {
+            log.warn("Could not cache {} on disk", name, e);
+        } finally {
+            deleteQuietly(part);
+        }
+    }
+
+    // A disk hit without loading anything; null when the entry is absent or was just evicted
+    private byte[] readCached(String base, boolean whole, long offset, int length) {
+        String name = whole ? base + ".obj" : rangeName(base, offset, length);
+        if (!isCached(name)) {
+            return null;
+        }
+        try {
+            if (!whole) {
+                return Files.readAllBytes(directory.resolve(name));
+            }
+            byte[] data = new byte[length];
+            openObject(name).read(offset, ByteBuffer.wrap(data));
+            return data;
+        } catch (IOException e) {
+            forget(name);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the entry's file, fetching it through the loader unless it is already on
+     * disk. Concurrent callers for the same entry wait for one fetch.
+     */
+    private Path fetch(String name, long offset, long length, RangeCache.Loader loader) throws IOException {
+        Path path = directory.resolve(name);
+        if (isCached(name)) {
+            return path;
+        }
+        CompletableFuture<Path> fetch = new CompletableFuture<>();
+        CompletableFuture<Path> existing = loading.putIfAbsent(name, fetch);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            if (!isCached(name)) {
+                write(path, offset, length, loader);
+                register(name, length);
+            }
+            fetch.complete(path);
+            return path;
+        } catch (IOException | RuntimeException e) {
+            fetch.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(name, fetch);
+        }
+    }
+
+    // Streams the range into a temporary file and renames it into place
+    private void write(Path path, long offset, long length, RangeCache.Loader loader) throws IOException {
+        Path part = directory.resolve(path.getFileName() + ".part");
+        try {
+            try (InputStream in = loader.open(offset, length);
+                 ReadableByteChannel source = Channels.newChannel(in);
+                 FileChannel out = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                         StandardOpenOption.TRUNCATE_EXISTING)) {
+                long written = 0;
+                while (written < length) {
+                    long n = out.transferFrom(source, written, length - written);
+                    if (n <= 0) {
+                        throw new EOFException("Unexpected end of " + path.getFileName() + " after " + written
+                                + " of " + length + " bytes");
+                    }
+                    written += n;
+                }
+            }
+            Files.move(part, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            deleteQuietly(part);
+        }
+    }
+
+    /**
+     * Objects are mapped once and shared by every reader until evicted. The lookup and the
+     * open happen under the same lock as eviction, so an entry evicted in between is never
+     * put back; callers see a NoSuchFileException instead and fetch it again.
+     */
+    private synchronized LocalInputFile openObject(String name) throws IOException {
+        Path path = directory.resolve(name);
+        if (!isCached(name)) {
+            throw new NoSuchFileException(path.toString());
+        }
+        LocalInputFile object = openObjects.get(name);
+        if (object == null) {
+            object = LocalInputFile.open(path, true);
+            try {
+                // The modification time carries the last use across restarts
+                Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (IOException e) {
+                closeQuietly(object);
+                throw e;
+            }
+            openObjects.put(name, object);
+        }
+        return object;
+    }
+
+    // Complete entries from earlier runs are kept, least recently used first; partial writes are discarded
+    private void reindex() throws IOException {
+        List<File> found = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(path -> {
+                String name = path.getFileName().toString();
+                if (PART.matcher(name).matches()) {
+                    deleteQuietly(path);
+                } else if (ENTRY.matcher(name).matches()) {
+                    found.add(path.toFile());
+                }
+            });
+        }
+        found.sort(Comparator.comparingLong(File::lastModified));
+        for (File file : found) {
+            register(file.getName(), file.length());
+        }
+        log.info("Disk cache {} holds {} entries ({} bytes)", directory, found.size(), usedBytes);
+    }
+
+    private synchronized boolean isCached(String name) {
+        return entries.get(name) != null;
+    }
+
+    // Records an entry and evicts the least recently used ones over the size cap
+    private synchronized void register(String name, long bytes) {
+        Long previous = entries.put(name, bytes);
+        usedBytes += bytes - (previous == null ? 0 : previous);
+        Iterator<Map.Entry<String, Long>> oldest = entries.entrySet().iterator();
+        while (usedBytes > config.getMaxBytes() && entries.size() > 1) {
+            Map.Entry<String, Long> entry = oldest.next();
+            if (entry.getKey().equals(name)) {
+                continue;
+            }
+            usedBytes -= entry.getValue();
+            oldest.remove();
+            // Readers of an evicted object keep its mapping until they finish
+            LocalInputFile object = openObjects.remove(entry.getKey());
+            if (object != null) {
+                closeQuietly(object);
+            }
+            deleteQuietly(directory.resolve(entry.getKey()));
+        }
+    }
+
+    private synchronized void forget(String name) {
+        Long bytes = entries.remove(name);
+        if (bytes != null) {
+            usedBytes -= bytes;
+        }
+        LocalInputFile object = openObjects.remove(name);
+        if (object != null) {
+            closeQuietly(object);
+        }
+    }
+
+    private static String rangeName(String base, long offset, int length) {
+        return base + "-" + offset + "-" + length + ".rng";
+    }
+
+    // First 128 bits of the SHA-256, hex encoded
+    private static String nameFor(String version) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(version.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(NAME_LENGTH);
+            for (int i = 0; i < NAME_LENGTH / 2; i++) {
+                name.append(Character.forDigit((digest[i] >> 4) & 0xF, 16));
+                name.append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            return name.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> fetch) throws IOException {
+        try {
+            return fetch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a cached fetch");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Cached fetch failed", cause);
+        }
+    }
+
+    private void closeQuietly(LocalInputFile object) {
+        try {
+            object.close();
+        } catch (IOException e) {
+            log.warn("Could not close {}", object, e);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete {}", path, e);
+        }
+    }
+}
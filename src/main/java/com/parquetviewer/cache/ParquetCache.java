@@ -0,0 +1,148 @@
+package com.parquetviewer.cache;
+
+import com.parquetviewer.config.CacheConfig;
+import com.parquetviewer.io.RangeCache;
+import com.parquetviewer.model.CacheStatistics;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-bounded LRU cache of parsed footers and fetched byte ranges, keyed by
+ * bucket/key/ETag so a rewritten object never serves stale entries.
+ */
+@Component
+@Slf4j
+public class ParquetCache {
+
+    // Rough in-heap expansion of a compact-thrift footer once parsed into metadata objects
+    private static final int FOOTER_WEIGHT_FACTOR = 8;
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final CacheConfig cacheConfig;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long usedBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public ParquetCache(CacheConfig cacheConfig) {
+        this.cacheConfig = cacheConfig;
+    }
+
+    public ParquetMetadata getFooter(String bucket, String key, String etag) {
+        if (etag == null) {
+            return null;
+        }
+        Entry entry = lookup(new Key(bucket, key, etag, -1, 0));
+        return entry == null ? null : entry.footer;
+    }
+
+    public void putFooter(String bucket, String key, String etag, ParquetMetadata footer, int footerLength) {
+        if (etag == null) {
+            return;
+        }
+        long weight = (long) footerLength * FOOTER_WEIGHT_FACTOR + ENTRY_OVERHEAD;
+        store(new Key(bucket, key, etag, -1, 0), new Entry(footer, null, weight));
+    }
+
+    /**
+     * Returns a range cache scoped to one version of one object, or null when range
+     * caching is disabled or the object has no ETag to validate against.
+     */
+    public RangeCache rangesFor(String bucket, String key, String etag) {
+        if (!cacheConfig.isCacheRanges() || etag == null) {
+            return null;
+        }
+        return new RangeCache() {
+            @Override
+            public boolean accepts(int length) {
+                return length <= cacheConfig.getMaxRangeBytes();
+            }
+
+            @Override
+            public byte[] get(long offset, int length) {
+                Entry entry = lookup(new Key(bucket, key, etag, offset, length));
+                return entry == null ? null : entry.data;
+            }
+
+            @Override
+            public void put(long offset, byte[] data) {
+                if (accepts(data.length)) {
+                    store(new Key(bucket, key, etag, offset, data.length),
+                            new Entry(null, data, (long) data.length + ENTRY_OVERHEAD));
+                }
+            }
+        };
+    }
+
+    public CacheStatistics getStatistics() {
+        synchronized (entries) {
+            return new CacheStatistics(hits.get(), misses.get(), evictions.get(),
+                    entries.size(), usedBytes, cacheConfig.getMaxBytes());
+        }
+    }
+
+    private Entry lookup(Key key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        (entry == null ? misses : hits).incrementAndGet();
+        return entry;
+    }
+
+    private void store(Key key, Entry entry) {
+        if (entry.weight > cacheConfig.getMaxBytes()) {
+            return;
+        }
+        synchronized (entries) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                usedBytes -= previous.weight;
+            }
+            usedBytes += entry.weight;
+
+            Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+            while (usedBytes > cacheConfig.getMaxBytes() && eldest.hasNext()) {
+                Map.Entry<Key, Entry> victim = eldest.next();
+                if (victim.getKey().equals(key)) {
+                    continue;
+                }
+                usedBytes -= victim.getValue().weight;
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    @Value
+    private static class Key {
+        String bucket;
+        String key;
+        String etag;
+        long offset;  // -1 for the footer entry
+        int length;
+    }
+
+    private static class Entry {
+        final ParquetMetadata footer;
+        final byte[] data;
+        final long weight;
+
+        Entry(ParquetMetadata footer, byte[] data, long weight) {
+            this.footer = footer;
+            this.data = data;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.parquetviewer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "parquet.admission")
+@Data
+public class AdmissionConfig {
+    private int maxConcurrent = 16;               // File reads running at once across all files
+    private int maxConcurrentPerFile = 4;         // File reads running at once against one file or dataset
+    private int maxConcurrentStreams = 8;         // Streamed responses (NDJSON, Arrow, downloads) at once
+    private int maxConcurrentStreamsPerFile = 2;  // Streamed responses at once from one file
+    private int maxQueued = 64;                   // Waiting requests per pool; more are refused
+    private long queueTimeoutMs = 10000;          // Longest a request waits for a slot before it is refused
+    private long sharedWaitTimeoutMs = 30000;     // Longest a request waits on an identical one in flight
+    private int retryAfterSeconds = 1;            // Retry-After sent with a 429
+}
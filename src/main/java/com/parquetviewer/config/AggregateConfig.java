@@ -0,0 +1,14 @@
+package com.parquetviewer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "parquet.aggregate")
+@Data
+public class AggregateConfig {
+    private int maxGroups = 100_000;       // Larger group-bys are rejected rather than held in memory
+    private int defaultLimit = 1000;       // Groups returned when the request sets no limit
+    private int maxLimit = 100_000;
+}
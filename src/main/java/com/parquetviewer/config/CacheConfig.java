@@ -0,0 +1,14 @@
+package com.parquetviewer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "parquet.cache")
+@Data
+public class CacheConfig {
+    private long maxBytes = 256L * 1024 * 1024;  // Heap budget shared by cached footers and byte ranges
+    private boolean cacheRanges = true;          // Also keep fetched column-chunk ranges, not just footers
+    private int maxRangeBytes = 16 * 1024 * 1024;  // Larger single reads are streamed through uncached
+}
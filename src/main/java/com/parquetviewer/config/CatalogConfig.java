@@ -0,0 +1,17 @@
+package com.parquetviewer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "parquet.catalog")
+@Data
+public class CatalogConfig {
+    private long refreshIntervalMs = 60_000;  // Background re-listing period
+    private long ttlMs = 300_000;             // A listing older than this is reloaded on access
+    private int listingThreads = 8;           // Concurrent LIST calls across sub-prefixes
+    private int shardDepth = 1;               // Directory levels expanded into parallel shards
+    private int defaultPageSize = 1000;       // Files returned per GET /api/files page
+    private int maxPageSize = 10_000;
+}
@@ -0,0 +1,14 @@
+package com.parquetviewer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "parquet.dataset")
+@Data
+public class DatasetConfig {
+    private int footerThreads = 16;       // Footers of a dataset's files are fetched concurrently on this pool
+    private int maxCachedDatasets = 32;   // Merged schemas and footers kept for recently opened datasets
+    private int maxCachedCounts = 16;     // Filtered row counts remembered per dataset, by filter text
+}
@@ -0,0 +1,16 @@
+package com.parquetviewer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "parquet.diskcache")
+@Data
+public class DiskCacheConfig {
+    private boolean enabled = true;
+    private String directory = System.getProperty("java.io.tmpdir") + "/parquet-viewer-cache";
+    private long maxBytes = 10L << 30;          // Disk held by cached objects and ranges before LRU eviction
+    private long maxObjectBytes = 0;            // Objects up to this size are fetched whole on first read; 0 never
+    private int maxRangeBytes = 64 << 20;       // Larger reads of bigger objects go straight to S3
+}
@@ -0,0 +1,23 @@
+package com.parquetviewer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "parquet.export")
+@Data
+public class ExportConfig {
+    private boolean compressResponses = true; // Honour Accept-Encoding (zstd, gzip) for CSV and Arrow downloads
+    private int zstdLevel = 3;
+    private int outputBufferBytes = 64 * 1024;
+    private int excelRowAccessWindow = 100;        // Rows per sheet held in heap before spilling to temp files
+    private boolean excelCompressTempFiles = true; // Gzip SXSSF temp files: less disk, more CPU
+    private int excelWidthSampleRows = 1000;       // Rows used to estimate column widths
+    private long excelMaxRows = 5_000_000;
+    private long excelMaxCells = 50_000_000;       // Caps temp-file disk use and the final workbook size
+    private String jobDirectory = System.getProperty("java.io.tmpdir") + "/parquet-viewer-exports";
+    private int jobThreads = 2;                    // Export jobs generated concurrently
+    private long jobTtlMs = 3_600_000;             // Idle time before a finished export is deleted
+    private long jobCleanupIntervalMs = 60_000;
+}
@@ -0,0 +1,18 @@
+package com.parquetviewer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "parquet.profile")
+@Data
+public class ProfileConfig {
+    private String directory = System.getProperty("java.io.tmpdir") + "/parquet-viewer-profiles";
+    private boolean autoStart = true;       // Profile a file in the background the first time its metadata is read
+    private int jobThreads = 1;             // Concurrent profiling jobs; each also uses the shared scan pool
+    private int topValues = 10;
+    private int histogramBuckets = 10;
+    private int sampleSize = 4096;          // Per-column uniform sample the histogram is cut from
+    private int maxTrackedValues = 4096;    // Distinct values counted per column for top-N; beyond this counts are approximate
+}
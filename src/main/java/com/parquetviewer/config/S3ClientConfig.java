@@ -1,9 +1,13 @@
-
 package com.parquetviewer.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import lombok.Data;
+import software.amazon.awssdk.auth.credentials.AwsSessionCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
 
 @Configuration
 @ConfigurationProperties(prefix = "aws.s3")
@@ -15,4 +19,15 @@ public class S3ClientConfig {
     private String region;
     private String bucketName;
     private String prefix = "";  // Optional prefix to filter files in the bucket
+    private int readAheadBytes = 1024 * 1024;  // Minimum size of each ranged GET issued while reading a file
+
+    // Shared client so the service and the footer/range readers reuse one connection pool
+    @Bean
+    public S3Client s3Client() {
+        return S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsSessionCredentials.create(accessKey, secretKey, sessionToken)))
+                .build();
+    }
 }
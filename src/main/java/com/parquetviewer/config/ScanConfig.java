@@ -0,0 +1,15 @@
+package com.parquetviewer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "parquet.scan")
+@Data
+public class ScanConfig {
+    private int threads = 0;                  // Shared row-group decode pool; 0 means one per CPU
+    private int maxParallelismPerRequest = 4; // Row groups one scan may have in flight at once
+    private int bufferedChunksPerGroup = 4;   // Batches a streamed row group may decode ahead of its consumer
+    private int streamThreads = 0;            // Separate pool for streamed exports; 0 means one per CPU
+}
@@ -0,0 +1,14 @@
+package com.parquetviewer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "parquet.sort")
+@Data
+public class SortConfig {
+    private String directory = System.getProperty("java.io.tmpdir") + "/parquet-viewer-sort";
+    private int topKRows = 10_000;              // Pages ending within this many rows use a top-K pass instead of a full sort
+    private long maxIndexBytes = 1L << 30;      // Disk held by cached sort indexes before LRU eviction
+}
@@ -1,14 +1,31 @@
 package com.parquetviewer.controller;
 
-import com.parquetviewer.model.ParquetFile;
+import com.parquetviewer.model.AggregateRequest;
+import com.parquetviewer.model.AggregateResult;
+import com.parquetviewer.model.CacheStatistics;
+import com.parquetviewer.model.ColumnarData;
+import com.parquetviewer.model.ExportJob;
+import com.parquetviewer.model.FileProfile;
+import com.parquetviewer.model.ParquetDataset;
+import com.parquetviewer.model.ParquetFilePage;
 import com.parquetviewer.model.ParquetMetadata;
 import com.parquetviewer.model.ParquetData;
+import com.parquetviewer.service.ExportJobService;
 import com.parquetviewer.service.ParquetService;
+import com.parquetviewer.service.ProfileService;
+import com.parquetviewer.service.TooManyRequestsException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.URI;
 import java.util.List;
 
 @RestController
@@ -17,15 +34,22 @@ import java.util.List;
 public class ParquetController {
 
     private final ParquetService parquetService;
+    private final ExportJobService exportJobService;
+    private final ProfileService profileService;
 
     @Autowired
-    public ParquetController(ParquetService parquetService) {
+    public ParquetController(ParquetService parquetService, ExportJobService exportJobService,
+                             ProfileService profileService) {
         this.parquetService = parquetService;
+        this.exportJobService = exportJobService;
+        this.profileService = profileService;
     }
 
     @GetMapping("/files")
-    public ResponseEntity<List<ParquetFile>> getAllParquetFiles() {
-        return ResponseEntity.ok(parquetService.getAllParquetFiles());
+    public ResponseEntity<ParquetFilePage> getParquetFiles(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(parquetService.getParquetFiles(cursor, limit));
     }
 
     @GetMapping("/files/{id}/metadata")
@@ -33,19 +57,168 @@ public class ParquetController {
         return ResponseEntity.ok(parquetService.getParquetMetadata(id));
     }
 
+    // Column profile of the current object version: 200 once computed, 202 while queued or running
+    @GetMapping("/files/{id}/profile")
+    public ResponseEntity<FileProfile> getProfile(@PathVariable String id) {
+        FileProfile profile = profileService.getProfile(id);
+        if (profile == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return profileResponse(id, profile);
+    }
+
+    @PostMapping("/files/{id}/profile")
+    public ResponseEntity<FileProfile> startProfile(@PathVariable String id) {
+        return profileResponse(id, profileService.startProfile(id));
+    }
+
+    private ResponseEntity<FileProfile> profileResponse(String id, FileProfile profile) {
+        if (profile.getStatus() == FileProfile.Status.COMPLETED) {
+            return ResponseEntity.ok(profile);
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/files/" + id + "/profile"))
+                .body(profile);
+    }
+
     @GetMapping("/files/{id}/data")
     public ResponseEntity<ParquetData> getParquetData(
             @PathVariable String id,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "50") int pageSize) {
-        return ResponseEntity.ok(parquetService.getParquetData(id, page, pageSize));
+            @RequestParam(defaultValue = "50") int pageSize,
+            @RequestParam(required = false) List<String> columns,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) String sort) {
+        return ResponseEntity.ok(parquetService.getParquetData(id, page, pageSize, columns, filter, sort));
+    }
+
+    // Column-major JSON: a names array, one typed array per column and per-column null bitmaps
+    @GetMapping(value = "/files/{id}/data", params = "format=columnar")
+    public ResponseEntity<ColumnarData> getColumnarData(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int pageSize,
+            @RequestParam(required = false) List<String> columns,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) String sort) {
+        return ResponseEntity.ok(parquetService.getColumnarData(id, page, pageSize, columns, filter, sort));
+    }
+
+    // Newline-delimited JSON: a header line, then one line per row written as it is decoded
+    @GetMapping(value = "/files/{id}/data", params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamParquetData(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int pageSize,
+            @RequestParam(required = false) List<String> columns,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) String sort) {
+        StreamingResponseBody body = outputStream ->
+                parquetService.streamParquetData(id, page, pageSize, columns, filter, sort, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    // Arrow IPC stream: one schema message, then the page as record batches
+    @GetMapping(value = "/files/{id}/data", params = "format=arrow")
+    public ResponseEntity<StreamingResponseBody> streamArrowData(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int pageSize,
+            @RequestParam(required = false) List<String> columns,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) String sort) {
+        StreamingResponseBody body = outputStream ->
+                parquetService.streamArrowData(id, page, pageSize, columns, filter, sort, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/vnd.apache.arrow.stream"))
+                .body(body);
     }
     
+    // Group-by aggregation over the key and aggregated columns only; 400 for unknown columns or functions
+    @PostMapping("/files/{id}/aggregate")
+    public ResponseEntity<AggregateResult> aggregate(@PathVariable String id,
+                                                     @RequestBody AggregateRequest request) {
+        return ResponseEntity.ok(parquetService.aggregate(id, request));
+    }
+
+    // Top-level directories under the prefix, each read as one table across its files
+    @GetMapping("/datasets")
+    public ResponseEntity<List<ParquetDataset>> getDatasets() {
+        return ResponseEntity.ok(parquetService.getDatasets());
+    }
+
+    @GetMapping("/datasets/{id}/metadata")
+    public ResponseEntity<ParquetMetadata> getDatasetMetadata(@PathVariable String id) {
+        return ResponseEntity.ok(parquetService.getDatasetMetadata(id));
+    }
+
+    @GetMapping("/datasets/{id}/data")
+    public ResponseEntity<ParquetData> getDatasetData(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int pageSize,
+            @RequestParam(required = false) List<String> columns,
+            @RequestParam(required = false) String filter) {
+        return ResponseEntity.ok(parquetService.getDatasetData(id, page, pageSize, columns, filter));
+    }
+
     @GetMapping("/files/{id}/download")
     public void downloadParquetFile(
             @PathVariable String id,
             @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) List<String> columns,
+            @RequestParam(required = false) String filter,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
             HttpServletResponse response) {
-        parquetService.downloadParquetFile(id, format, response);
+        parquetService.downloadParquetFile(id, format, columns, filter, acceptEncoding, response);
+    }
+
+    // Background export: returns the job at once; poll its status, then fetch the spooled result
+    @PostMapping("/files/{id}/exports")
+    public ResponseEntity<ExportJob> createExportJob(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) List<String> columns,
+            @RequestParam(required = false) String filter) {
+        ExportJob job = exportJobService.createJob(id, format, columns, filter);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/exports/" + job.getId()))
+                .body(job);
+    }
+
+    @GetMapping("/exports/{jobId}")
+    public ResponseEntity<ExportJob> getExportJob(@PathVariable String jobId) {
+        ExportJob job = exportJobService.getJob(jobId);
+        return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(job);
+    }
+
+    // Supports Range, If-Range and If-None-Match, so interrupted downloads resume where they stopped
+    @GetMapping("/exports/{jobId}/result")
+    public void getExportResult(@PathVariable String jobId, HttpServletRequest request,
+                                HttpServletResponse response) throws IOException {
+        exportJobService.serveResult(jobId, request, response);
+    }
+
+    // Bad columns, filters or sort orders, and requests over a configured limit
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(e.getMessage());
+    }
+
+    // Reads refused admission while the file or the service is saturated
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Void> tooManyRequests(TooManyRequestsException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .build();
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CacheStatistics> getCacheStatistics() {
+        return ResponseEntity.ok(parquetService.getCacheStatistics());
     }
-}
\ No newline at end of file
+}
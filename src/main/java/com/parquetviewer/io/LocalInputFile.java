@@ -0,0 +1,121 @@
+package com.parquetviewer.io;
+
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.SeekableInputStream;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Parquet {@link InputFile} over a local file, opened once and shared by every stream.
+ *
+ * Reads are positional, so streams keep their own position and concurrent row-group
+ * readers never contend on a lock or a shared file pointer. A mapped file is copied
+ * straight from the page cache into the caller's buffer; otherwise the channel reads
+ * into it directly. Either way heap and direct buffers are filled without an
+ * intermediate array, so a direct {@code ByteBufferAllocator} in the read options
+ * keeps column chunks off the heap entirely.
+ */
+public class LocalInputFile implements InputFile, Closeable {
+    // Mappings are limited to 2 GiB each, so larger files are mapped in segments
+    private static final long SEGMENT_BYTES = 1L << 30;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long length;
+    private final MappedByteBuffer[] segments;
+
+    private LocalInputFile(Path path, FileChannel channel, long length, MappedByteBuffer[] segments) {
+        this.path = path;
+        this.channel = channel;
+        this.length = length;
+        this.segments = segments;
+    }
+
+    public static LocalInputFile open(Path path, boolean mapped) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long length = channel.size();
+            MappedByteBuffer[] segments = null;
+            if (mapped && length > 0) {
+                segments = new MappedByteBuffer[(int) ((length + SEGMENT_BYTES - 1) / SEGMENT_BYTES)];
+                for (int i = 0; i < segments.length; i++) {
+                    long start = i * SEGMENT_BYTES;
+                    segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                            Math.min(SEGMENT_BYTES, length - start));
+                }
+            }
+            return new LocalInputFile(path, channel, length, segments);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public long getLength() {
+        return length;
+    }
+
+    @Override
+    public SeekableInputStream newStream() throws IOException {
+        if (!channel.isOpen()) {
+            throw new IOException("File is closed: " + path);
+        }
+        return new LocalSeekableInputStream(this);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public boolean isMapped() {
+        return segments != null;
+    }
+
+    /**
+     * Fills {@code dest} from {@code position} on. Safe to call from any number of threads,
+     * since neither the channel's nor the mappings' positions are ever moved.
+     */
+    public void read(long position, ByteBuffer dest) throws IOException {
+        if (position + dest.remaining() > length) {
+            throw new EOFException("Read of " + dest.remaining() + " bytes at " + position
+                    + " past the end of " + path + " (" + length + " bytes)");
+        }
+        if (segments == null) {
+            while (dest.hasRemaining()) {
+                int n = channel.read(dest, position);
+                if (n < 0) {
+                    throw new EOFException("Unexpected end of " + path + " at " + position);
+                }
+                position += n;
+            }
+            return;
+        }
+        while (dest.hasRemaining()) {
+            ByteBuffer segment = segments[(int) (position / SEGMENT_BYTES)].duplicate();
+            int offset = (int) (position % SEGMENT_BYTES);
+            int n = Math.min(dest.remaining(), segment.capacity() - offset);
+            segment.position(offset).limit(offset + n);
+            dest.put(segment);
+            position += n;
+        }
+    }
+
+    // Closing drops the channel; mappings are released once their buffers are collected
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return path.toString();
+    }
+}
@@ -0,0 +1,129 @@
+package com.parquetviewer.io;
+
+import org.apache.parquet.io.SeekableInputStream;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Seekable stream over a {@link LocalInputFile}. It only holds a position: every read
+ * is a positional read of the shared file into the caller's buffer, so there is no
+ * per-stream buffer to fill and no copy beyond the one into the destination.
+ */
+class LocalSeekableInputStream extends SeekableInputStream {
+
+    private final LocalInputFile file;
+    private final long length;
+    private final ByteBuffer single = ByteBuffer.allocate(1);
+
+    private long pos;
+    private boolean closed;
+
+    LocalSeekableInputStream(LocalInputFile file) {
+        this.file = file;
+        this.length = file.getLength();
+    }
+
+    @Override
+    public long getPos() {
+        return pos;
+    }
+
+    @Override
+    public void seek(long newPos) throws IOException {
+        ensureOpen();
+        if (newPos < 0 || newPos > length) {
+            throw new EOFException("Seek to " + newPos + " outside of " + file + " (" + length + " bytes)");
+        }
+        pos = newPos;
+    }
+
+    @Override
+    public int read() throws IOException {
+        ensureOpen();
+        if (pos >= length) {
+            return -1;
+        }
+        single.clear();
+        file.read(pos++, single);
+        return single.get(0) & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (len == 0) {
+            return 0;
+        }
+        if (pos >= length) {
+            return -1;
+        }
+        int n = (int) Math.min(len, length - pos);
+        readFully(b, off, n);
+        return n;
+    }
+
+    @Override
+    public void readFully(byte[] bytes) throws IOException {
+        readFully(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void readFully(byte[] bytes, int start, int len) throws IOException {
+        ensureOpen();
+        file.read(pos, ByteBuffer.wrap(bytes, start, len));
+        pos += len;
+    }
+
+    @Override
+    public int read(ByteBuffer byteBuffer) throws IOException {
+        ensureOpen();
+        if (!byteBuffer.hasRemaining()) {
+            return 0;
+        }
+        if (pos >= length) {
+            return -1;
+        }
+        int n = (int) Math.min(byteBuffer.remaining(), length - pos);
+        ByteBuffer window = byteBuffer.duplicate();
+        window.limit(window.position() + n);
+        file.read(pos, window);
+        byteBuffer.position(byteBuffer.position() + n);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public void readFully(ByteBuffer byteBuffer) throws IOException {
+        ensureOpen();
+        int len = byteBuffer.remaining();
+        file.read(pos, byteBuffer);
+        pos += len;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        ensureOpen();
+        long skipped = Math.max(0, Math.min(n, length - pos));
+        pos += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, length - pos));
+    }
+
+    // The file stays open for other streams; only this stream's position is dropped
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed: " + file);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.parquetviewer.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Per-object cache of byte ranges consulted by {@link S3SeekableInputStream}
+ * before issuing a ranged GET. Cached arrays must never be mutated.
+ */
+public interface RangeCache {
+
+    // Opens a ranged read of the object, normally a GET
+    interface Loader {
+        InputStream open(long offset, long length) throws IOException;
+    }
+
+    // Whether a range of this size would be kept; lets the stream skip the defensive copy
+    boolean accepts(int length);
+
+    byte[] get(long offset, int length);
+
+    void put(long offset, byte[] data);
+
+    /**
+     * Returns the range, reading it through the loader and keeping it on a miss. Tiers that
+     * can do better, such as fetching a small object whole, override this.
+     */
+    default byte[] load(long offset, int length, Loader loader) throws IOException {
+        byte[] data = get(offset, length);
+        if (data == null) {
+            data = new byte[length];
+            try (InputStream in = loader.open(offset, length)) {
+                readFully(in, data);
+            }
+            put(offset, data);
+        }
+        return data;
+    }
+
+    static void readFully(InputStream in, byte[] data) throws IOException {
+        int off = 0;
+        while (off < data.length) {
+            int n = in.read(data, off, data.length - off);
+            if (n < 0) {
+                throw new EOFException("Unexpected end of ranged read after " + off + " of " + data.length + " bytes");
+            }
+            off += n;
+        }
+    }
+}
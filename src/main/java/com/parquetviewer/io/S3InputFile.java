@@ -0,0 +1,100 @@
+package com.parquetviewer.io;
+
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.SeekableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parquet {@link InputFile} backed directly by S3 byte-range GETs.
+ * Nothing is written to local disk; only the ranges Parquet asks for
+ * (plus read-ahead) are transferred.
+ */
+public class S3InputFile implements InputFile {
+    private final S3Client s3Client;
+    private final String bucket;
+    private final String key;
+    private final long length;
+    private final String etag;
+    private final int readAheadBytes;
+    private final RangeCache rangeCache;
+
+    private final AtomicLong bytesFetched = new AtomicLong();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    public S3InputFile(S3Client s3Client, String bucket, String key, long length, String etag,
+                       int readAheadBytes, RangeCache rangeCache) {
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.key = key;
+        this.length = length;
+        this.etag = etag;
+        this.readAheadBytes = readAheadBytes;
+        this.rangeCache = rangeCache;
+    }
+
+    @Override
+    public long getLength() {
+        return length;
+    }
+
+    @Override
+    public SeekableInputStream newStream() throws IOException {
+        return new S3SeekableInputStream(this);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    // May be null; when present every ranged GET is conditional on it
+    public String getEtag() {
+        return etag;
+    }
+
+    public long getBytesFetched() {
+        return bytesFetched.get();
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    // Bytes handed to readers, wherever they came from; compare with bytes fetched for read-ahead waste
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    S3Client getS3Client() {
+        return s3Client;
+    }
+
+    String getBucket() {
+        return bucket;
+    }
+
+    int getReadAheadBytes() {
+        return readAheadBytes;
+    }
+
+    RangeCache getRangeCache() {
+        return rangeCache;
+    }
+
+    void recordFetch(long bytes) {
+        bytesFetched.addAndGet(bytes);
+        requestCount.incrementAndGet();
+    }
+
+    void recordRead(long bytes) {
+        bytesRead.addAndGet(bytes);
+    }
+
+    @Override
+    public String toString() {
+        return "s3://" + bucket + "/" + key;
+    }
+}
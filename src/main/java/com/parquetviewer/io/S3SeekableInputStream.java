@@ -0,0 +1,282 @@
+package com.parquetviewer.io;
+
+import org.apache.parquet.io.SeekableInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Seekable stream over an S3 object that issues one ranged GET per buffer miss.
+ *
+ * Small reads are served from a read-ahead block, so neighbouring column chunks
+ * and page headers share a single request. Reads at least as large as the block
+ * (Parquet already merges consecutive column chunks into one readFully) go
+ * straight into the caller's buffer without an intermediate copy. A miss near
+ * the end of the object fetches the whole tail block, which picks up the footer
+ * length and the footer itself in one request.
+ *
+ * When the file carries a {@link RangeCache}, read-ahead blocks are aligned to the
+ * block size and, like large reads, looked up in the cache before going to S3, so
+ * repeated reads of the same pages are served from memory.
+ */
+class S3SeekableInputStream extends SeekableInputStream {
+    private static final int COPY_CHUNK_SIZE = 64 * 1024;
+
+    private final S3InputFile file;
+    private final long length;
+    private final int readAheadBytes;
+    private final RangeCache rangeCache;
+
+    private long pos;
+    private byte[] buffer;
+    private long bufferStart;
+    private int bufferLength;
+    private boolean bufferShared;
+    private boolean closed;
+
+    S3SeekableInputStream(S3InputFile file) {
+        this.file = file;
+        this.length = file.getLength();
+        this.readAheadBytes = Math.max(1, file.getReadAheadBytes());
+        this.rangeCache = file.getRangeCache();
+    }
+
+    @Override
+    public long getPos() {
+        return pos;
+    }
+
+    @Override
+    public void seek(long newPos) throws IOException {
+        ensureOpen();
+        if (newPos < 0 || newPos > length) {
+            throw new EOFException("Seek to " + newPos + " outside of " + file + " (" + length + " bytes)");
+        }
+        pos = newPos;
+    }
+
+    @Override
+    public int read() throws IOException {
+        ensureOpen();
+        if (pos >= length) {
+            return -1;
+        }
+        if (!inBuffer(pos)) {
+            fillBuffer(pos);
+        }
+        file.recordRead(1);
+        return buffer[(int) (pos++ - bufferStart)] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (len == 0) {
+            return 0;
+        }
+        if (pos >= length) {
+            return -1;
+        }
+        int n = (int) Math.min(len, length - pos);
+        readInto(b, off, n);
+        file.recordRead(n);
+        return n;
+    }
+
+    @Override
+    public void readFully(byte[] bytes) throws IOException {
+        readFully(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void readFully(byte[] bytes, int start, int len) throws IOException {
+        ensureOpen();
+        checkAvailable(len);
+        readInto(bytes, start, len);
+        file.recordRead(len);
+    }
+
+    @Override
+    public int read(ByteBuffer byteBuffer) throws IOException {
+        ensureOpen();
+        if (!byteBuffer.hasRemaining()) {
+            return 0;
+        }
+        if (pos >= length) {
+            return -1;
+        }
+        int n = (int) Math.min(byteBuffer.remaining(), length - pos);
+        readInto(byteBuffer, n);
+        file.recordRead(n);
+        return n;
+    }
+
+    @Override
+    public void readFully(ByteBuffer byteBuffer) throws IOException {
+        ensureOpen();
+        int len = byteBuffer.remaining();
+        checkAvailable(len);
+        readInto(byteBuffer, len);
+        file.recordRead(len);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        buffer = null;
+    }
+
+    private void readInto(byte[] dest, int off, int len) throws IOException {
+        int copied = copyFromBuffer(dest, off, len);
+        off += copied;
+        len -= copied;
+        if (len == 0) {
+            return;
+        }
+        if (len >= readAheadBytes) {
+            if (rangeCache != null && rangeCache.accepts(len)) {
+                System.arraycopy(fetchCached(pos, len), 0, dest, off, len);
+            } else {
+                try (InputStream in = openRange(pos, len)) {
+                    readFully(in, dest, off, len);
+                }
+            }
+            pos += len;
+        } else {
+            // An aligned block may end before the read does, so keep filling until done
+            while (len > 0) {
+                fillBuffer(pos);
+                copied = copyFromBuffer(dest, off, len);
+                off += copied;
+                len -= copied;
+            }
+        }
+    }
+
+    private void readInto(ByteBuffer dest, int len) throws IOException {
+        if (dest.hasArray()) {
+            int off = dest.arrayOffset() + dest.position();
+            readInto(dest.array(), off, len);
+            dest.position(dest.position() + len);
+            return;
+        }
+
+        // Direct buffers: serve what we can from the read-ahead block, then stream the rest
+        while (len > 0 && inBuffer(pos)) {
+            int n = (int) Math.min(len, bufferStart + bufferLength - pos);
+            dest.put(buffer, (int) (pos - bufferStart), n);
+            pos += n;
+            len -= n;
+        }
+        if (len == 0) {
+            return;
+        }
+        if (len >= readAheadBytes && rangeCache != null && rangeCache.accepts(len)) {
+            dest.put(fetchCached(pos, len));
+            pos += len;
+        } else if (len >= readAheadBytes) {
+            byte[] chunk = new byte[Math.min(len, COPY_CHUNK_SIZE)];
+            try (InputStream in = openRange(pos, len)) {
+                int remaining = len;
+                while (remaining > 0) {
+                    int n = Math.min(remaining, chunk.length);
+                    readFully(in, chunk, 0, n);
+                    dest.put(chunk, 0, n);
+                    remaining -= n;
+                }
+            }
+            pos += len;
+        } else {
+            while (len > 0) {
+                fillBuffer(pos);
+                int n = (int) Math.min(len, bufferStart + bufferLength - pos);
+                dest.put(buffer, (int) (pos - bufferStart), n);
+                pos += n;
+                len -= n;
+            }
+        }
+    }
+
+    private int copyFromBuffer(byte[] dest, int off, int len) {
+        if (!inBuffer(pos)) {
+            return 0;
+        }
+        int n = (int) Math.min(len, bufferStart + bufferLength - pos);
+        System.arraycopy(buffer, (int) (pos - bufferStart), dest, off, n);
+        pos += n;
+        return n;
+    }
+
+    private boolean inBuffer(long position) {
+        return buffer != null && position >= bufferStart && position < bufferStart + bufferLength;
+    }
+
+    private void fillBuffer(long position) throws IOException {
+        long start = position;
+        if (length - position <= readAheadBytes) {
+            // Tail of the object: fetch the whole last block so the footer comes with it
+            start = Math.max(0, length - readAheadBytes);
+        } else if (rangeCache != null) {
+            // Aligned blocks give repeated reads the same cache keys
+            start = position - position % readAheadBytes;
+        }
+        int len = (int) Math.min(readAheadBytes, length - start);
+
+        if (rangeCache != null && rangeCache.accepts(len)) {
+            // Cached arrays are shared, so the buffer is replaced rather than refilled
+            buffer = fetchCached(start, len);
+            bufferShared = true;
+        } else {
+            if (buffer == null || buffer.length < len || bufferShared) {
+                buffer = new byte[readAheadBytes];
+                bufferShared = false;
+            }
+            try (InputStream in = openRange(start, len)) {
+                readFully(in, buffer, 0, len);
+            }
+        }
+        bufferStart = start;
+        bufferLength = len;
+    }
+
+    private byte[] fetchCached(long start, int len) throws IOException {
+        return rangeCache.load(start, len, this::openRange);
+    }
+
+    private InputStream openRange(long start, long len) {
+        GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(file.getBucket())
+                .key(file.getKey())
+                .range("bytes=" + start + "-" + (start + len - 1))
+                .ifMatch(file.getEtag())
+                .build();
+        file.recordFetch(len);
+        return file.getS3Client().getObject(request);
+    }
+
+    private void readFully(InputStream in, byte[] dest, int off, int len) throws IOException {
+        while (len > 0) {
+            int n = in.read(dest, off, len);
+            if (n < 0) {
+                throw new EOFException("Unexpected end of ranged read from " + file);
+            }
+            off += n;
+            len -= n;
+        }
+    }
+
+    private void checkAvailable(long len) throws EOFException {
+        if (pos + len > length) {
+            throw new EOFException("Reached end of " + file + " while reading " + len + " bytes at " + pos);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed: " + file);
+        }
+    }
+}
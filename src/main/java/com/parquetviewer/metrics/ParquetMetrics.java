@@ -0,0 +1,122 @@
+package com.parquetviewer.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Entry point for the service's Micrometer meters, exported at /actuator/prometheus.
+ * Every meter carries an {@code endpoint} tag and a {@code size} tag bucketing the
+ * object (or dataset) size, so latency can be compared across small and large files.
+ * Work that belongs to no request, such as catalog listing, uses size "none".
+ */
+@Component
+@Slf4j
+public class ParquetMetrics {
+
+    public static final String NO_SIZE = "none";
+
+    private static final long MB = 1024 * 1024;
+
+    private final MeterRegistry registry;
+
+    @Autowired
+    public ParquetMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    // Times one request; close it to record the request and the S3 traffic of the files it tracked
+    public RequestMetrics request(String endpoint, long sizeBytes) {
+        return new RequestMetrics(registry, Tags.of("endpoint", endpoint, "size", sizeBucket(sizeBytes)));
+    }
+
+    public Timer.Sample startTimer() {
+        return Timer.start(registry);
+    }
+
+    public void recordListing(Timer.Sample sample) {
+        sample.stop(Timer.builder("parquet.s3.list")
+                .description("Full listing of the bucket prefix")
+                .tags("endpoint", "catalog", "size", NO_SIZE)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    // Bytes currently held on local disk under the directory, read at scrape time
+    public void monitorDirectory(String endpoint, Path directory) {
+        Gauge.builder("parquet.temp.disk", directory, ParquetMetrics::directoryBytes)
+                .description("Local disk used for spooled and temporary files")
+                .baseUnit("bytes")
+                .tags("endpoint", endpoint, "size", NO_SIZE)
+                .register(registry);
+    }
+
+    // Requests currently waiting for a slot of one admission pool
+    public void monitorQueue(String pool, AtomicInteger queued) {
+        Gauge.builder("parquet.admission.queued", queued, AtomicInteger::get)
+                .description("Requests waiting for a read slot")
+                .tags("endpoint", "admission", "size", NO_SIZE, "pool", pool)
+                .register(registry);
+    }
+
+    public void countRejected(String endpoint) {
+        Counter.builder("parquet.admission.rejected")
+                .description("Requests refused with 429 because the read queue was full or the wait timed out")
+                .tags("endpoint", endpoint, "size", NO_SIZE)
+                .register(registry)
+                .increment();
+    }
+
+    public void countCoalesced(String endpoint) {
+        Counter.builder("parquet.requests.coalesced")
+                .description("Requests answered by joining an identical read already in flight")
+                .tags("endpoint", endpoint, "size", NO_SIZE)
+                .register(registry)
+                .increment();
+    }
+
+    static String sizeBucket(long bytes) {
+        if (bytes < MB) {
+            return "lt_1mb";
+        } else if (bytes < 16 * MB) {
+            return "1mb_16mb";
+        } else if (bytes < 128 * MB) {
+            return "16mb_128mb";
+        } else if (bytes < 1024 * MB) {
+            return "128mb_1gb";
+        }
+        return "gt_1gb";
+    }
+
+    private static double directoryBytes(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).mapToLong(path -> {
+                try {
+                    return Files.size(path);
+                } catch (NoSuchFileException e) {
+                    return 0; // removed while walking
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).sum();
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (IOException | UncheckedIOException e) {
+            log.debug("Could not measure {}", directory, e);
+            return Double.NaN;
+        }
+    }
+}
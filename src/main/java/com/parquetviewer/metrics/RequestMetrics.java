@@ -0,0 +1,85 @@
+package com.parquetviewer.metrics;
+
+import com.parquetviewer.io.S3InputFile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stage timers of one request, all sharing its endpoint and size tags. Stages are
+ * recorded from scan pool threads as well as the request thread, so every method
+ * is thread-safe. Durations are measured by the caller and recorded once per row
+ * group or batch rather than per value.
+ */
+public final class RequestMetrics implements AutoCloseable {
+
+    public static final String FOOTER = "parquet.footer.read";
+    public static final String DECODE = "parquet.rowgroup.decode";
+    public static final String CONVERT = "parquet.value.convert";
+    public static final String ENCODE = "parquet.encode";
+
+    private final MeterRegistry registry;
+    private final Tags tags;
+    private final Timer.Sample sample;
+    private final List<S3InputFile> files = new ArrayList<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    RequestMetrics(MeterRegistry registry, Tags tags) {
+        this.registry = registry;
+        this.tags = tags;
+        this.sample = Timer.start(registry);
+    }
+
+    // S3 traffic of tracked files is counted when the request closes
+    public S3InputFile track(S3InputFile file) {
+        synchronized (files) {
+            files.add(file);
+        }
+        return file;
+    }
+
+    public void record(String stage, long nanos) {
+        timer(stage, null).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Encoding is further tagged by output format: json, csv, xlsx or arrow
+    public void recordEncode(String format, long nanos) {
+        timer(ENCODE, format).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(String name, String format) {
+        return timers.computeIfAbsent(format == null ? name : name + "/" + format, key -> {
+            Timer.Builder builder = Timer.builder(name).tags(tags).publishPercentileHistogram();
+            if (format != null) {
+                builder.tag("format", format);
+            }
+            return builder.register(registry);
+        });
+    }
+
+    @Override
+    public void close() {
+        sample.stop(timer("parquet.request", null));
+        long fetched = 0;
+        long read = 0;
+        long requests = 0;
+        synchronized (files) {
+            for (S3InputFile file : files) {
+                fetched += file.getBytesFetched();
+                read += file.getBytesRead();
+                requests += file.getRequestCount();
+            }
+        }
+        // Fetched includes read-ahead and whole cached blocks; read is what the decoders consumed
+        Counter.builder("parquet.s3.fetched").baseUnit("bytes").tags(tags).register(registry).increment(fetched);
+        Counter.builder("parquet.s3.read").baseUnit("bytes").tags(tags).register(registry).increment(read);
+        Counter.builder("parquet.s3.requests").tags(tags).register(registry).increment(requests);
+    }
+}
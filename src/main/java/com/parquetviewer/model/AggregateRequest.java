@@ -0,0 +1,26 @@
+package com.parquetviewer.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AggregateRequest {
+    private List<String> groupBy;
+    private List<Aggregate> aggregates;   // Defaults to count(*)
+    private String filter;                // Same syntax as the data endpoint's filter parameter
+    private Integer limit;                // Groups returned, in key order
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Aggregate {
+        private String function;          // count, sum, min, max or avg
+        private String column;            // Omitted or "*" for count(*)
+        private String alias;             // Result column name; defaults to e.g. "sum(amount)"
+    }
+}
@@ -0,0 +1,18 @@
+package com.parquetviewer.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AggregateResult {
+    private List<String> columns;             // Group keys, then aggregates
+    private List<Map<String, Object>> rows;
+    private long groupCount;                  // Before the limit is applied
+    private boolean fromStatistics;           // Answered from footer statistics without reading any pages
+}
@@ -0,0 +1,17 @@
+package com.parquetviewer.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatistics {
+    private long hits;
+    private long misses;
+    private long evictions;
+    private int entries;
+    private long usedBytes;
+    private long maxBytes;
+}
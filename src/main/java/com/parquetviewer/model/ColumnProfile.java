@@ -0,0 +1,41 @@
+package com.parquetviewer.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ColumnProfile {
+    private String name;
+    private String type;
+    private long rowCount;
+    private long nullCount;                  // Exact
+    private long distinctCount;              // HyperLogLog estimate, within about 1%
+    private String min;
+    private String max;
+    private List<ValueCount> topValues;      // Most frequent values, most frequent first
+    private List<HistogramBucket> histogram; // Equi-depth buckets over non-null values; numeric columns only
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ValueCount {
+        private String value;
+        private long count;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class HistogramBucket {
+        private double lower;
+        private double upper;
+        private long count;
+    }
+}
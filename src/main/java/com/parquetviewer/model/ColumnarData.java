@@ -0,0 +1,20 @@
+package com.parquetviewer.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ColumnarData {
+    private List<String> names;
+    private List<String> types;
+    private List<Object> values;        // One array per column, all of length rowCount
+    private List<String> nullBitmaps;   // Base64, bit i (LSB-first) set when row i is null; null when the column has no nulls
+    private int rowCount;
+    private long totalRows;
+    private int currentPage;
+    private int pageSize;
+}
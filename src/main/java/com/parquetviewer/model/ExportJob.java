@@ -0,0 +1,30 @@
+package com.parquetviewer.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ExportJob {
+    public enum Status { PENDING, RUNNING, COMPLETED, FAILED }
+
+    private String id;
+    private String fileId;
+    private String fileName;
+    private String format;
+    private List<String> columns;
+    private String filter;
+    private Status status;
+    private String createdAt;
+    private String completedAt;
+    private String expiresAt;       // Spooled result is deleted after this; every download pushes it back
+    private Long sizeBytes;
+    private String resultUrl;       // Supports Range and If-None-Match once status is COMPLETED
+    private String error;
+}
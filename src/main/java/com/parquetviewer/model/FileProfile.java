@@ -0,0 +1,25 @@
+package com.parquetviewer.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FileProfile {
+    public enum Status { PENDING, RUNNING, COMPLETED, FAILED }
+
+    private String fileId;
+    private String etag;            // The profile describes this version of the object only
+    private Status status;
+    private String startedAt;
+    private String completedAt;
+    private Long rowCount;
+    private List<ColumnProfile> columns;  // Flat primitive columns; nested columns are not profiled
+    private String error;
+}
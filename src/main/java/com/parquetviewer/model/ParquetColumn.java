@@ -1,9 +1,10 @@
-
 package com.parquetviewer.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -17,8 +18,17 @@ public class ParquetColumn {
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     public static class ColumnStatistics {
-        private long nullCount;
-        private long distinctCount;
+        private Long nullCount;       // null when the footer carries no null counts
+        private Long distinctCount;   // null until the column is profiled
+        private String min;
+        private String max;
+        private String codec;
+        private List<String> encodings;
+        private long compressedSize;
+        private long uncompressedSize;
+        private List<ColumnProfile.ValueCount> topValues;       // From the column profile, when there is one
+        private List<ColumnProfile.HistogramBucket> histogram;
     }
 }
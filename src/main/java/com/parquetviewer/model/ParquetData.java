@@ -13,7 +13,7 @@ import java.util.Map;
 public class ParquetData {
     private List<ParquetColumn> columns;
     private List<Map<String, Object>> rows;
-    private int totalRows;
+    private long totalRows;
     private int currentPage;
     private int pageSize;
 }
@@ -0,0 +1,20 @@
+package com.parquetviewer.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParquetDataset {
+    private String id;
+    private String name;
+    private String path;
+    private int fileCount;
+    private long size;
+    private String lastModified;             // Latest of its files
+    private List<String> partitionColumns;   // From key=value directories, in path order
+}
@@ -14,6 +14,7 @@ public class ParquetFile {
     private String path;
     private long size;
     private String lastModified;
+    private String etag;
     private int columnCount;
     private int rowCount;
 }
@@ -0,0 +1,15 @@
+package com.parquetviewer.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParquetFilePage {
+    private List<ParquetFile> files;
+    private String nextCursor;  // null on the last page
+    private int totalFiles;
+}
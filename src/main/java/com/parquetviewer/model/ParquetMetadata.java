@@ -1,6 +1,7 @@
 
 package com.parquetviewer.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -19,6 +20,11 @@ public class ParquetMetadata {
     private String format;
     private String compression;
     private List<ParquetColumn> schema;
-    private int rowCount;
+    private long rowCount;
     private ParquetStatistics statistics;
+    private String profileStatus;   // State of the column profile behind the detailed column statistics
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer fileCount;      // Datasets only
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<String> partitionColumns;
 }
@@ -1,9 +1,9 @@
-
 package com.parquetviewer.model;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -12,4 +12,19 @@ public class ParquetStatistics {
     private double totalSize;
     private int rowGroups;
     private double averageRowGroupSize;
+    private long compressedSize;
+    private long uncompressedSize;
+    private String createdBy;
+    private List<RowGroup> rowGroupDetails;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowGroup {
+        private int index;
+        private long rowCount;
+        private long startingPos;
+        private long compressedSize;
+        private long uncompressedSize;
+    }
 }
@@ -0,0 +1,300 @@
+package com.parquetviewer.profile;
+
+import com.parquetviewer.model.ColumnProfile;
+import com.parquetviewer.reader.ColumnVector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+/**
+ * Accumulates the profile of one column over decoded batches. Profilers built over
+ * separate column chunks merge into the profile of the whole column.
+ *
+ * Null counts, min and max are exact. Distinct counts are exact while the column has
+ * fewer than {@code maxTrackedValues} values and a HyperLogLog estimate beyond that,
+ * where top-N counts also become approximate. Histograms are cut from a bottom-k
+ * sample: every value draws a random priority and the lowest ones are kept, which
+ * stays a uniform sample when chunk samples are merged.
+ */
+public final class ColumnProfiler {
+
+    private final String name;
+    private final String type;
+    private final ColumnVector.Kind kind;
+    private final int maxTrackedValues;
+    private final int sampleSize;
+    private final SplittableRandom random;
+    private final HyperLogLog distinct = new HyperLogLog();
+    private final Map<Object, long[]> counts = new HashMap<>();
+    private final PriorityQueue<Sample> sample =
+            new PriorityQueue<>(Comparator.comparingDouble((Sample s) -> s.priority).reversed());
+
+    private long rows;
+    private long nulls;
+    private boolean overflowed;
+    private boolean hasRange;
+    private long minLong;
+    private long maxLong;
+    private double minDouble;
+    private double maxDouble;
+    private String minString;
+    private String maxString;
+
+    public ColumnProfiler(String name, String type, ColumnVector.Kind kind, int maxTrackedValues, int sampleSize,
+                          long seed) {
+        this.name = name;
+        this.type = type;
+        this.kind = kind;
+        this.maxTrackedValues = maxTrackedValues;
+        this.sampleSize = sampleSize;
+        this.random = new SplittableRandom(seed);
+    }
+
+    public void add(ColumnVector column, int size) {
+        for (int row = 0; row < size; row++) {
+            rows++;
+            if (column.isNull(row)) {
+                nulls++;
+                continue;
+            }
+            switch (kind) {
+                case INT:
+                    addLong(column.getInt(row));
+                    break;
+                case LONG:
+                    addLong(column.getLong(row));
+                    break;
+                case BOOLEAN:
+                    addLong(column.getBoolean(row) ? 1 : 0);
+                    break;
+                case FLOAT:
+                    addDouble(column.getFloat(row));
+                    break;
+                case DOUBLE:
+                    addDouble(column.getDouble(row));
+                    break;
+                default:
+                    addString((String) column.getObject(row));
+            }
+        }
+    }
+
+    private void addLong(long value) {
+        distinct.addHash(HyperLogLog.hash(value));
+        if (!hasRange) {
+            minLong = value;
+            maxLong = value;
+            hasRange = true;
+        } else if (value < minLong) {
+            minLong = value;
+        } else if (value > maxLong) {
+            maxLong = value;
+        }
+        count(value);
+        if (kind != ColumnVector.Kind.BOOLEAN) {
+            sample(value);
+        }
+    }
+
+    private void addDouble(double value) {
+        distinct.addHash(HyperLogLog.hash(value));
+        count(value);
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (!hasRange) {
+            minDouble = value;
+            maxDouble = value;
+            hasRange = true;
+        } else if (value < minDouble) {
+            minDouble = value;
+        } else if (value > maxDouble) {
+            maxDouble = value;
+        }
+        sample(value);
+    }
+
+    private void addString(String value) {
+        distinct.addHash(HyperLogLog.hash(value));
+        if (!hasRange) {
+            minString = value;
+            maxString = value;
+            hasRange = true;
+        } else if (value.compareTo(minString) < 0) {
+            minString = value;
+        } else if (value.compareTo(maxString) > 0) {
+            maxString = value;
+        }
+        count(value);
+    }
+
+    private void count(Object value) {
+        long[] count = counts.get(value);
+        if (count != null) {
+            count[0]++;
+        } else if (counts.size() < maxTrackedValues) {
+            counts.put(value, new long[] { 1 });
+        } else {
+            overflowed = true;
+        }
+    }
+
+    private void sample(double value) {
+        double priority = random.nextDouble();
+        if (sample.size() < sampleSize) {
+            sample.add(new Sample(priority, value));
+        } else if (priority < sample.peek().priority) {
+            sample.poll();
+            sample.add(new Sample(priority, value));
+        }
+    }
+
+    public void merge(ColumnProfiler other) {
+        rows += other.rows;
+        nulls += other.nulls;
+        distinct.merge(other.distinct);
+        if (other.hasRange) {
+            if (!hasRange) {
+                minLong = other.minLong;
+                maxLong = other.maxLong;
+                minDouble = other.minDouble;
+                maxDouble = other.maxDouble;
+                minString = other.minString;
+                maxString = other.maxString;
+                hasRange = true;
+            } else {
+                minLong = Math.min(minLong, other.minLong);
+                maxLong = Math.max(maxLong, other.maxLong);
+                minDouble = Math.min(minDouble, other.minDouble);
+                maxDouble = Math.max(maxDouble, other.maxDouble);
+                if (minString != null && other.minString.compareTo(minString) < 0) {
+                    minString = other.minString;
+                }
+                if (maxString != null && other.maxString.compareTo(maxString) > 0) {
+                    maxString = other.maxString;
+                }
+            }
+        }
+
+        overflowed |= other.overflowed;
+        for (Map.Entry<Object, long[]> entry : other.counts.entrySet()) {
+            counts.computeIfAbsent(entry.getKey(), k -> new long[1])[0] += entry.getValue()[0];
+        }
+        if (counts.size() > maxTrackedValues) {
+            // Keep the most frequent values; the rest only count toward the distinct estimate
+            List<Map.Entry<Object, long[]>> entries = byCount();
+            for (Map.Entry<Object, long[]> dropped : entries.subList(maxTrackedValues, entries.size())) {
+                counts.remove(dropped.getKey());
+            }
+            overflowed = true;
+        }
+
+        for (Sample s : other.sample) {
+            if (sample.size() < sampleSize) {
+                sample.add(s);
+            } else if (s.priority < sample.peek().priority) {
+                sample.poll();
+                sample.add(s);
+            }
+        }
+    }
+
+    public ColumnProfile toProfile(int topValues, int histogramBuckets) {
+        ColumnProfile profile = new ColumnProfile();
+        profile.setName(name);
+        profile.setType(type);
+        profile.setRowCount(rows);
+        profile.setNullCount(nulls);
+        long nonNull = rows - nulls;
+        profile.setDistinctCount(overflowed ? Math.min(distinct.estimate(), nonNull) : counts.size());
+        if (hasRange) {
+            switch (kind) {
+                case INT:
+                case LONG:
+                case BOOLEAN:
+                    profile.setMin(format(minLong));
+                    profile.setMax(format(maxLong));
+                    break;
+                case FLOAT:
+                case DOUBLE:
+                    profile.setMin(format(minDouble));
+                    profile.setMax(format(maxDouble));
+                    break;
+                default:
+                    profile.setMin(minString);
+                    profile.setMax(maxString);
+            }
+        }
+
+        List<ColumnProfile.ValueCount> top = new ArrayList<>();
+        for (Map.Entry<Object, long[]> entry : byCount()) {
+            if (top.size() == topValues) {
+                break;
+            }
+            top.add(new ColumnProfile.ValueCount(format(entry.getKey()), entry.getValue()[0]));
+        }
+        profile.setTopValues(top);
+
+        if (!sample.isEmpty()) {
+            profile.setHistogram(histogram(nonNull, histogramBuckets));
+        }
+        return profile;
+    }
+
+    // Buckets hold equal shares of the sample, scaled to the column's non-null count
+    private List<ColumnProfile.HistogramBucket> histogram(long nonNull, int buckets) {
+        double[] values = new double[sample.size()];
+        int n = 0;
+        for (Sample s : sample) {
+            values[n++] = s.value;
+        }
+        Arrays.sort(values);
+
+        int bucketCount = Math.min(buckets, n);
+        List<ColumnProfile.HistogramBucket> histogram = new ArrayList<>();
+        long assigned = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            int lo = (int) ((long) i * n / bucketCount);
+            int hi = (int) ((long) (i + 1) * n / bucketCount);
+            long count = i == bucketCount - 1
+                    ? nonNull - assigned
+                    : Math.round((double) nonNull * (hi - lo) / n);
+            assigned += count;
+            histogram.add(new ColumnProfile.HistogramBucket(values[lo], values[hi - 1], count));
+        }
+        return histogram;
+    }
+
+    private List<Map.Entry<Object, long[]>> byCount() {
+        List<Map.Entry<Object, long[]>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+        return entries;
+    }
+
+    private String format(Object value) {
+        switch (kind) {
+            case BOOLEAN:
+                return String.valueOf(((Number) value).longValue() != 0);
+            case FLOAT:
+                return String.valueOf(((Number) value).floatValue());
+            default:
+                return String.valueOf(value);
+        }
+    }
+
+    private static final class Sample {
+        final double priority;
+        final double value;
+
+        Sample(double priority, double value) {
+            this.priority = priority;
+            this.value = value;
+        }
+    }
+}
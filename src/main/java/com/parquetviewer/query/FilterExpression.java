@@ -0,0 +1,590 @@
+package com.parquetviewer.query;
+
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.filter2.predicate.Operators;
+import org.apache.parquet.io.InvalidRecordException;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiles a SQL-like filter such as {@code PDE_RCVD_DT >= '2024-01-01' AND REC_TYPE = 'X'}
+ * into a Parquet {@link FilterPredicate}, typed against the file schema.
+ *
+ * Supported: comparisons (=, ==, !=, <>, <, <=, >, >=), IS [NOT] NULL, IN (...),
+ * AND, OR, NOT and parentheses. Identifiers may be dotted paths to nested leaves and
+ * may be quoted with double quotes or backticks. DATE and TIMESTAMP columns accept
+ * ISO-8601 string literals. Unquoted TRUE and FALSE only compare with BOOLEAN columns,
+ * and NULL is only accepted through IS [NOT] NULL.
+ */
+public class FilterExpression {
+
+    private final String expression;
+    private final FilterPredicate predicate;
+    private final Set<String> columns;
+    private final Boolean constant;
+
+    private FilterExpression(String expression, Term term, Set<String> columns) {
+        this.expression = expression;
+        this.predicate = term.predicate;
+        this.columns = columns;
+        this.constant = term.constant;
+    }
+
+    public static FilterExpression compile(String expression, MessageType schema) {
+        return bind(expression, schema, Collections.emptyMap());
+    }
+
+    /**
+     * Compiles the filter for one file of a partitioned dataset. Columns in {@code knownValues}
+     * (the file's partition values, and null for columns the file lacks) are compared right
+     * away, so the result either matches nothing, matches everything, or carries a predicate
+     * over the file's own columns only.
+     */
+    public static FilterExpression bind(String expression, MessageType schema, Map<String, ?> knownValues) {
+        Parser parser = new Parser(expression, schema, knownValues);
+        Term term = parser.parseExpression();
+        if (parser.peek().kind != TokenKind.END) {
+            throw parser.error("Unexpected '" + parser.peek().text + "'");
+        }
+        return new FilterExpression(expression, term, parser.columns);
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    // Null when the filter reduced to a constant
+    public FilterPredicate getPredicate() {
+        return predicate;
+    }
+
+    public boolean matchesNone() {
+        return Boolean.FALSE.equals(constant);
+    }
+
+    public boolean matchesAll() {
+        return Boolean.TRUE.equals(constant);
+    }
+
+    // Top-level column names referenced by the expression; these must be part of any read projection
+    public Set<String> getColumns() {
+        return columns;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    // A parsed sub-expression: a predicate, or a constant once known columns are substituted
+    private static final class Term {
+        static final Term TRUE = new Term(true, null);
+        static final Term FALSE = new Term(false, null);
+
+        final Boolean constant;
+        final FilterPredicate predicate;
+
+        private Term(Boolean constant, FilterPredicate predicate) {
+            this.constant = constant;
+            this.predicate = predicate;
+        }
+
+        static Term of(FilterPredicate predicate) {
+            return new Term(null, predicate);
+        }
+
+        static Term of(boolean value) {
+            return value ? TRUE : FALSE;
+        }
+
+        Term and(Term other) {
+            if (this == FALSE || other == FALSE) {
+                return FALSE;
+            }
+            if (this == TRUE) {
+                return other;
+            }
+            return other == TRUE ? this : of(FilterApi.and(predicate, other.predicate));
+        }
+
+        Term or(Term other) {
+            if (this == TRUE || other == TRUE) {
+                return TRUE;
+            }
+            if (this == FALSE) {
+                return other;
+            }
+            return other == FALSE ? this : of(FilterApi.or(predicate, other.predicate));
+        }
+
+        Term not() {
+            return constant != null ? of(!constant) : of(FilterApi.not(predicate));
+        }
+    }
+
+    private enum TokenKind { IDENT, STRING, NUMBER, OPERATOR, LPAREN, RPAREN, COMMA, END }
+
+    private static class Token {
+        final TokenKind kind;
+        final String text;
+        final int position;
+
+        Token(TokenKind kind, String text, int position) {
+            this.kind = kind;
+            this.text = text;
+            this.position = position;
+        }
+
+        boolean isKeyword(String keyword) {
+            return kind == TokenKind.IDENT && text.equalsIgnoreCase(keyword);
+        }
+    }
+
+    private static class Parser {
+        private final String input;
+        private final MessageType schema;
+        private final Map<String, ?> knownValues;
+        private final List<Token> tokens;
+        private final Set<String> columns = new LinkedHashSet<>();
+        private int index;
+
+        Parser(String input, MessageType schema, Map<String, ?> knownValues) {
+            this.input = input;
+            this.schema = schema;
+            this.knownValues = knownValues;
+            this.tokens = tokenize(input);
+        }
+
+        Term parseExpression() {
+            Term left = parseAnd();
+            while (peek().isKeyword("OR")) {
+                next();
+                left = left.or(parseAnd());
+            }
+            return left;
+        }
+
+        private Term parseAnd() {
+            Term left = parseUnary();
+            while (peek().isKeyword("AND")) {
+                next();
+                left = left.and(parseUnary());
+            }
+            return left;
+        }
+
+        private Term parseUnary() {
+            if (peek().isKeyword("NOT")) {
+                next();
+                return parseUnary().not();
+            }
+            if (peek().kind == TokenKind.LPAREN) {
+                next();
+                Term inner = parseExpression();
+                expect(TokenKind.RPAREN, ")");
+                return inner;
+            }
+            return parseComparison();
+        }
+
+        private Term parseComparison() {
+            Token ident = expect(TokenKind.IDENT, "column name");
+            ColumnDescriptor column = resolveColumn(ident);
+
+            if (peek().isKeyword("IS")) {
+                next();
+                boolean negated = false;
+                if (peek().isKeyword("NOT")) {
+                    next();
+                    negated = true;
+                }
+                if (!next().isKeyword("NULL")) {
+                    throw error("Expected NULL after IS");
+                }
+                return build(column, negated ? "!=" : "=", null);
+            }
+
+            if (peek().isKeyword("IN") || peek().isKeyword("NOT")) {
+                boolean negated = next().isKeyword("NOT");
+                if (negated && !next().isKeyword("IN")) {
+                    throw error("Expected IN after NOT");
+                }
+                expect(TokenKind.LPAREN, "(");
+                Term any = Term.FALSE;
+                do {
+                    Token value = literal();
+                    if (value.isKeyword("NULL")) {
+                        throw error("NULL never matches in an IN list; use IS NULL / IS NOT NULL");
+                    }
+                    any = any.or(build(column, "=", value));
+                } while (accept(TokenKind.COMMA));
+                expect(TokenKind.RPAREN, ")");
+                return negated ? any.not() : any;
+            }
+
+            Token op = expect(TokenKind.OPERATOR, "comparison operator");
+            Token value = literal();
+            if (value.isKeyword("NULL")) {
+                throw error("Use IS NULL / IS NOT NULL to compare with NULL");
+            }
+            return build(column, op.text, value);
+        }
+
+        private Token literal() {
+            Token token = peek();
+            if (token.kind == TokenKind.STRING || token.kind == TokenKind.NUMBER
+                    || token.isKeyword("TRUE") || token.isKeyword("FALSE") || token.isKeyword("NULL")) {
+                return next();
+            }
+            throw error("Expected a literal value");
+        }
+
+        private ColumnDescriptor resolveColumn(Token ident) {
+            String[] path = ident.text.split("\\.");
+            if (!schema.containsPath(path)) {
+                // Row filters compare one value per row, so groups and repeated fields cannot be filtered on
+                if (isGroup(path)) {
+                    throw error("Cannot filter on nested column " + ident.text + "; name one of its leaf fields");
+                }
+                throw error("Unknown column: " + ident.text);
+            }
+            ColumnDescriptor column = schema.getColumnDescription(path);
+            if (column.getMaxRepetitionLevel() > 0) {
+                throw error("Cannot filter on repeated column " + ident.text);
+            }
+            // Known columns become constants, so only the others are needed by a reader
+            if (!knownValues.containsKey(path[0])) {
+                columns.add(path[0]);
+            }
+            return column;
+        }
+
+        private boolean isGroup(String[] path) {
+            try {
+                return !schema.getType(path).isPrimitive();
+            } catch (InvalidRecordException | ClassCastException e) {
+                return false;
+            }
+        }
+
+        private Term build(ColumnDescriptor descriptor, String op, Token value) {
+            PrimitiveType type = descriptor.getPrimitiveType();
+            String path = String.join(".", descriptor.getPath());
+            LogicalTypeAnnotation annotation = type.getLogicalTypeAnnotation();
+            String text = value == null ? null : value.text;
+            Comparable<?> literal;
+            // Unquoted TRUE and FALSE are booleans; other columns must quote them to compare text
+            if (value != null && (value.isKeyword("TRUE") || value.isKeyword("FALSE"))
+                    && type.getPrimitiveTypeName() != PrimitiveType.PrimitiveTypeName.BOOLEAN) {
+                throw error(value.text + " can only be compared with BOOLEAN columns, not " + path);
+            }
+
+            switch (type.getPrimitiveTypeName()) {
+                case INT32:
+                    literal = text == null ? null : toInt(text, annotation, path);
+                    break;
+                case INT64:
+                    literal = text == null ? null : toLong(text, annotation, path);
+                    break;
+                case FLOAT:
+                    literal = text == null ? null : toFloat(text, path);
+                    break;
+                case DOUBLE:
+                    literal = text == null ? null : toDouble(text, path);
+                    break;
+                case BOOLEAN:
+                    literal = text == null ? null : toBoolean(text);
+                    break;
+                case BINARY:
+                case FIXED_LEN_BYTE_ARRAY:
+                    if (annotation instanceof LogicalTypeAnnotation.DecimalLogicalTypeAnnotation) {
+                        throw error("Filtering on DECIMAL column " + path + " is not supported");
+                    }
+                    literal = text == null ? null : Binary.fromString(text);
+                    break;
+                default:
+                    throw error("Filtering on " + type.getPrimitiveTypeName() + " column " + path + " is not supported");
+            }
+
+            String column = descriptor.getPath()[0];
+            if (knownValues.containsKey(column)) {
+                return Term.of(evaluate(op, literal, knownValues.get(column)));
+            }
+            switch (type.getPrimitiveTypeName()) {
+                case INT32:
+                    return Term.of(compare(FilterApi.intColumn(path), op, (Integer) literal));
+                case INT64:
+                    return Term.of(compare(FilterApi.longColumn(path), op, (Long) literal));
+                case FLOAT:
+                    return Term.of(compare(FilterApi.floatColumn(path), op, (Float) literal));
+                case DOUBLE:
+                    return Term.of(compare(FilterApi.doubleColumn(path), op, (Double) literal));
+                case BOOLEAN:
+                    return Term.of(equality(FilterApi.booleanColumn(path), op, (Boolean) literal));
+                default:
+                    return Term.of(compare(FilterApi.binaryColumn(path), op, (Binary) literal));
+            }
+        }
+
+        /**
+         * Applies a comparison to a known value with Parquet's null semantics: {@code = NULL}
+         * and {@code != NULL} test for null, {@code !=} against a value keeps nulls and every
+         * other comparison with a null is false.
+         */
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        private boolean evaluate(String op, Comparable<?> literal, Object known) {
+            boolean notEqual = op.equals("!=") || op.equals("<>");
+            if (literal == null) {
+                return notEqual ? known != null : known == null;
+            }
+            if (known == null) {
+                return notEqual;
+            }
+            int result = ((Comparable) known).compareTo(literal);
+            switch (op) {
+                case "<":
+                    return result < 0;
+                case "<=":
+                    return result <= 0;
+                case ">":
+                    return result > 0;
+                case ">=":
+                    return result >= 0;
+                case "=":
+                case "==":
+                    return result == 0;
+                default:
+                    return result != 0;
+            }
+        }
+
+        private <T extends Comparable<T>, C extends Operators.Column<T> & Operators.SupportsLtGt>
+        FilterPredicate compare(C column, String op, T value) {
+            switch (op) {
+                case "<":
+                    return FilterApi.lt(column, value);
+                case "<=":
+                    return FilterApi.ltEq(column, value);
+                case ">":
+                    return FilterApi.gt(column, value);
+                case ">=":
+                    return FilterApi.gtEq(column, value);
+                default:
+                    return equality(column, op, value);
+            }
+        }
+
+        private <T extends Comparable<T>, C extends Operators.Column<T> & Operators.SupportsEqNotEq>
+        FilterPredicate equality(C column, String op, T value) {
+            switch (op) {
+                case "=":
+                case "==":
+                    return FilterApi.eq(column, value);
+                case "!=":
+                case "<>":
+                    return FilterApi.notEq(column, value);
+                default:
+                    throw error("Operator " + op + " is not supported for column " + column.getColumnPath().toDotString());
+            }
+        }
+
+        private Integer toInt(String text, LogicalTypeAnnotation annotation, String path) {
+            if (annotation instanceof LogicalTypeAnnotation.DateLogicalTypeAnnotation && !isNumeric(text)) {
+                try {
+                    return (int) LocalDate.parse(text).toEpochDay();
+                } catch (DateTimeParseException e) {
+                    throw error("Invalid date literal '" + text + "', expected yyyy-MM-dd");
+                }
+            }
+            try {
+                return Integer.valueOf(text);
+            } catch (NumberFormatException e) {
+                throw error("Invalid INT32 literal '" + text + "' for column " + path);
+            }
+        }
+
+        private Long toLong(String text, LogicalTypeAnnotation annotation, String path) {
+            if (annotation instanceof LogicalTypeAnnotation.TimestampLogicalTypeAnnotation && !isNumeric(text)) {
+                Instant instant = parseInstant(text);
+                switch (((LogicalTypeAnnotation.TimestampLogicalTypeAnnotation) annotation).getUnit()) {
+                    case MILLIS:
+                        return instant.toEpochMilli();
+                    case MICROS:
+                        return TimeUnit.SECONDS.toMicros(instant.getEpochSecond()) + instant.getNano() / 1000;
+                    default:
+                        return TimeUnit.SECONDS.toNanos(instant.getEpochSecond()) + instant.getNano();
+                }
+            }
+            try {
+                return Long.valueOf(text);
+            } catch (NumberFormatException e) {
+                throw error("Invalid INT64 literal '" + text + "' for column " + path);
+            }
+        }
+
+        private Float toFloat(String text, String path) {
+            try {
+                return Float.valueOf(text);
+            } catch (NumberFormatException e) {
+                throw error("Invalid FLOAT literal '" + text + "' for column " + path);
+            }
+        }
+
+        private Double toDouble(String text, String path) {
+            try {
+                return Double.valueOf(text);
+            } catch (NumberFormatException e) {
+                throw error("Invalid DOUBLE literal '" + text + "' for column " + path);
+            }
+        }
+
+        private Instant parseInstant(String text) {
+            try {
+                return Instant.parse(text);
+            } catch (DateTimeParseException ignored) {
+                // fall through to zone-less formats, interpreted as UTC
+            }
+            try {
+                return LocalDateTime.parse(text).toInstant(ZoneOffset.UTC);
+            } catch (DateTimeParseException ignored) {
+                // fall through to date-only
+            }
+            try {
+                return LocalDate.parse(text).atStartOfDay().toInstant(ZoneOffset.UTC);
+            } catch (DateTimeParseException e) {
+                throw error("Invalid timestamp literal '" + text + "'");
+            }
+        }
+
+        private Boolean toBoolean(String text) {
+            if (text.equalsIgnoreCase("true") || text.equalsIgnoreCase("false")) {
+                return Boolean.valueOf(text);
+            }
+            throw error("Invalid BOOLEAN literal '" + text + "'");
+        }
+
+        private boolean isNumeric(String text) {
+            return text.matches("-?\\d+");
+        }
+
+        private Token peek() {
+            return tokens.get(index);
+        }
+
+        private Token next() {
+            Token token = tokens.get(index);
+            if (token.kind != TokenKind.END) {
+                index++;
+            }
+            return token;
+        }
+
+        private boolean accept(TokenKind kind) {
+            if (peek().kind == kind) {
+                index++;
+                return true;
+            }
+            return false;
+        }
+
+        private Token expect(TokenKind kind, String description) {
+            if (peek().kind != kind) {
+                throw error("Expected " + description);
+            }
+            return next();
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + peek().position + " in filter: " + input);
+        }
+
+        private static List<Token> tokenize(String input) {
+            List<Token> tokens = new ArrayList<>();
+            int i = 0;
+            while (i < input.length()) {
+                char c = input.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if (c == '(') {
+                    tokens.add(new Token(TokenKind.LPAREN, "(", i++));
+                } else if (c == ')') {
+                    tokens.add(new Token(TokenKind.RPAREN, ")", i++));
+                } else if (c == ',') {
+                    tokens.add(new Token(TokenKind.COMMA, ",", i++));
+                } else if (c == '\'') {
+                    int start = i++;
+                    StringBuilder sb = new StringBuilder();
+                    while (true) {
+                        if (i >= input.length()) {
+                            throw new IllegalArgumentException("Unterminated string at position " + start + " in filter: " + input);
+                        }
+                        char ch = input.charAt(i++);
+                        if (ch == '\'') {
+                            if (i < input.length() && input.charAt(i) == '\'') {
+                                sb.append('\'');
+                                i++;
+                            } else {
+                                break;
+                            }
+                        } else {
+                            sb.append(ch);
+                        }
+                    }
+                    tokens.add(new Token(TokenKind.STRING, sb.toString(), start));
+                } else if (c == '"' || c == '`') {
+                    int end = input.indexOf(c, i + 1);
+                    if (end < 0) {
+                        throw new IllegalArgumentException("Unterminated identifier at position " + i + " in filter: " + input);
+                    }
+                    tokens.add(new Token(TokenKind.IDENT, input.substring(i + 1, end), i));
+                    i = end + 1;
+                } else if (c == '=' || c == '!' || c == '<' || c == '>') {
+                    int start = i++;
+                    if (i < input.length() && (input.charAt(i) == '=' || (c == '<' && input.charAt(i) == '>'))) {
+                        i++;
+                    }
+                    String op = input.substring(start, i);
+                    if (op.equals("!")) {
+                        throw new IllegalArgumentException("Unexpected '!' at position " + start + " in filter: " + input);
+                    }
+                    tokens.add(new Token(TokenKind.OPERATOR, op, start));
+                } else if (Character.isDigit(c) || ((c == '-' || c == '+') && i + 1 < input.length()
+                        && Character.isDigit(input.charAt(i + 1)))) {
+                    int start = i++;
+                    while (i < input.length() && (Character.isDigit(input.charAt(i)) || "eE.+-".indexOf(input.charAt(i)) >= 0)) {
+                        i++;
+                    }
+                    tokens.add(new Token(TokenKind.NUMBER, input.substring(start, i), start));
+                } else if (Character.isLetter(c) || c == '_') {
+                    int start = i++;
+                    while (i < input.length() && (Character.isLetterOrDigit(input.charAt(i))
+                            || input.charAt(i) == '_' || input.charAt(i) == '.')) {
+                        i++;
+                    }
+                    tokens.add(new Token(TokenKind.IDENT, input.substring(start, i), start));
+                } else {
+                    throw new IllegalArgumentException("Unexpected '" + c + "' at position " + i + " in filter: " + input);
+                }
+            }
+            tokens.add(new Token(TokenKind.END, "", input.length()));
+            return tokens;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.parquetviewer.query;
+
+import com.parquetviewer.reader.ColumnVector;
+import org.apache.parquet.schema.MessageType;
+
+import java.util.Locale;
+
+/**
+ * A {@code sort=column[:asc|desc]} request parameter, checked against the file schema.
+ * Only flat primitive columns can be sorted. Nulls sort last ascending and first descending.
+ */
+public final class SortOrder {
+
+    private final String column;
+    private final boolean ascending;
+
+    private SortOrder(String column, boolean ascending) {
+        this.column = column;
+        this.ascending = ascending;
+    }
+
+    // Returns null when no sort was requested
+    public static SortOrder parse(String sort, MessageType schema) {
+        if (sort == null || sort.trim().isEmpty()) {
+            return null;
+        }
+        String[] parts = sort.trim().split(":");
+        if (parts.length > 2) {
+            throw new IllegalArgumentException("Sort must be column[:asc|desc]: " + sort);
+        }
+        String column = parts[0].trim();
+        String direction = parts.length == 2 ? parts[1].trim().toLowerCase(Locale.ROOT) : "asc";
+        if (!direction.equals("asc") && !direction.equals("desc")) {
+            throw new IllegalArgumentException("Sort direction must be asc or desc: " + sort);
+        }
+        if (!schema.containsField(column)) {
+            throw new IllegalArgumentException("Unknown sort column: " + column);
+        }
+        if (ColumnVector.kindOf(schema.getType(column)) == ColumnVector.Kind.OBJECT) {
+            throw new IllegalArgumentException("Only primitive columns can be sorted: " + column);
+        }
+        return new SortOrder(column, direction.equals("asc"));
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+}
@@ -0,0 +1,11 @@
+package com.parquetviewer.reader;
+
+import java.io.IOException;
+
+/**
+ * Receives decoded batches in file order. The batch is reused after the call returns.
+ */
+@FunctionalInterface
+public interface BatchConsumer {
+    void accept(RowBatch batch) throws IOException;
+}
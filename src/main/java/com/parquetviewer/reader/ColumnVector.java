@@ -0,0 +1,250 @@
+package com.parquetviewer.reader;
+
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+
+import java.util.Arrays;
+
+/**
+ * One column of a {@link RowBatch}. Values live in a primitive array chosen by the
+ * column's physical type and are overwritten in place by every batch; a null slot
+ * keeps whatever the array held and is flagged in {@link #isNull(int)}.
+ * Binary columns hold their decoded strings, nested columns their converted objects.
+ */
+public final class ColumnVector {
+
+    public enum Kind { INT, LONG, FLOAT, DOUBLE, BOOLEAN, STRING, OBJECT }
+
+    private final String name;
+    private final Kind kind;
+    private final boolean[] nulls;
+    private int[] ints;
+    private long[] longs;
+    private float[] floats;
+    private double[] doubles;
+    private boolean[] booleans;
+    private Object[] objects;
+
+    ColumnVector(String name, Kind kind, int capacity) {
+        this.name = name;
+        this.kind = kind;
+        this.nulls = new boolean[capacity];
+        switch (kind) {
+            case INT:
+                ints = new int[capacity];
+                break;
+            case LONG:
+                longs = new long[capacity];
+                break;
+            case FLOAT:
+                floats = new float[capacity];
+                break;
+            case DOUBLE:
+                doubles = new double[capacity];
+                break;
+            case BOOLEAN:
+                booleans = new boolean[capacity];
+                break;
+            default:
+                objects = new Object[capacity];
+        }
+    }
+
+    public static Kind kindOf(Type field) {
+        if (!field.isPrimitive() || field.isRepetition(Type.Repetition.REPEATED)) {
+            return Kind.OBJECT;
+        }
+        PrimitiveType.PrimitiveTypeName typeName = field.asPrimitiveType().getPrimitiveTypeName();
+        switch (typeName) {
+            case INT32:
+                return Kind.INT;
+            case INT64:
+                return Kind.LONG;
+            case FLOAT:
+                return Kind.FLOAT;
+            case DOUBLE:
+                return Kind.DOUBLE;
+            case BOOLEAN:
+                return Kind.BOOLEAN;
+            default:
+                return Kind.STRING;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public boolean isNumeric() {
+        return kind == Kind.INT || kind == Kind.LONG || kind == Kind.FLOAT || kind == Kind.DOUBLE;
+    }
+
+    public boolean isNull(int row) {
+        return nulls[row];
+    }
+
+    public int getInt(int row) {
+        return ints[row];
+    }
+
+    public long getLong(int row) {
+        return longs[row];
+    }
+
+    public float getFloat(int row) {
+        return floats[row];
+    }
+
+    public double getDouble(int row) {
+        return doubles[row];
+    }
+
+    public boolean getBoolean(int row) {
+        return booleans[row];
+    }
+
+    // Any numeric kind widened to double
+    public double getAsDouble(int row) {
+        switch (kind) {
+            case INT:
+                return ints[row];
+            case LONG:
+                return longs[row];
+            case FLOAT:
+                return floats[row];
+            case DOUBLE:
+                return doubles[row];
+            default:
+                throw new IllegalStateException("Column " + name + " is not numeric");
+        }
+    }
+
+    public Object getObject(int row) {
+        return objects[row];
+    }
+
+    /**
+     * Returns the value boxed, or null. Only for callers that need an object anyway
+     * (JSON maps, CSV cells); hot loops should switch on {@link #getKind()} instead.
+     */
+    public Object getValue(int row) {
+        if (nulls[row]) {
+            return null;
+        }
+        switch (kind) {
+            case INT:
+                return ints[row];
+            case LONG:
+                return longs[row];
+            case FLOAT:
+                return floats[row];
+            case DOUBLE:
+                return doubles[row];
+            case BOOLEAN:
+                return booleans[row];
+            default:
+                return objects[row];
+        }
+    }
+
+    // Direct array access for bulk copies; valid up to the batch size only
+    public int[] ints() {
+        return ints;
+    }
+
+    public long[] longs() {
+        return longs;
+    }
+
+    public float[] floats() {
+        return floats;
+    }
+
+    public double[] doubles() {
+        return doubles;
+    }
+
+    public boolean[] booleans() {
+        return booleans;
+    }
+
+    public Object[] objects() {
+        return objects;
+    }
+
+    /**
+     * Stores an already converted Java value, unboxing it into the column's array.
+     * Used when rows come from a record reader rather than the column decoder.
+     */
+    public void set(int row, Object value) {
+        if (value == null) {
+            setNull(row);
+            return;
+        }
+        nulls[row] = false;
+        switch (kind) {
+            case INT:
+                ints[row] = ((Number) value).intValue();
+                break;
+            case LONG:
+                longs[row] = ((Number) value).longValue();
+                break;
+            case FLOAT:
+                floats[row] = ((Number) value).floatValue();
+                break;
+            case DOUBLE:
+                doubles[row] = ((Number) value).doubleValue();
+                break;
+            case BOOLEAN:
+                booleans[row] = (Boolean) value;
+                break;
+            case STRING:
+                objects[row] = value.toString();
+                break;
+            default:
+                objects[row] = value;
+        }
+    }
+
+    void setNull(int row) {
+        nulls[row] = true;
+        if (objects != null) {
+            objects[row] = null; // don't keep the previous batch's value reachable
+        }
+    }
+
+    void copyInto(ColumnVector target, int size) {
+        System.arraycopy(nulls, 0, target.nulls, 0, size);
+        switch (kind) {
+            case INT:
+                System.arraycopy(ints, 0, target.ints, 0, size);
+                break;
+            case LONG:
+                System.arraycopy(longs, 0, target.longs, 0, size);
+                break;
+            case FLOAT:
+                System.arraycopy(floats, 0, target.floats, 0, size);
+                break;
+            case DOUBLE:
+                System.arraycopy(doubles, 0, target.doubles, 0, size);
+                break;
+            case BOOLEAN:
+                System.arraycopy(booleans, 0, target.booleans, 0, size);
+                break;
+            default:
+                System.arraycopy(objects, 0, target.objects, 0, size);
+        }
+    }
+
+    boolean[] nulls() {
+        return nulls;
+    }
+
+    void clearNulls(int size) {
+        Arrays.fill(nulls, 0, size, false);
+    }
+}
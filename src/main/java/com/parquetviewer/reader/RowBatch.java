@@ -0,0 +1,70 @@
+package com.parquetviewer.reader;
+
+import org.apache.parquet.schema.MessageType;
+
+/**
+ * A reusable block of rows stored column by column. Readers hand out the same
+ * instance for every batch, so consumers must copy anything they keep.
+ */
+public final class RowBatch {
+
+    private final MessageType schema;
+    private final ColumnVector[] columns;
+    private final int capacity;
+    private int size;
+
+    public RowBatch(MessageType schema, int capacity) {
+        this.schema = schema;
+        this.capacity = capacity;
+        this.columns = new ColumnVector[schema.getFieldCount()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new ColumnVector(schema.getFieldName(i), ColumnVector.kindOf(schema.getType(i)), capacity);
+        }
+    }
+
+    public MessageType getSchema() {
+        return schema;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public ColumnVector column(int index) {
+        return columns[index];
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Object getValue(int column, int row) {
+        return columns[column].getValue(row);
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    // Detached copy of just this batch's rows, for consumers that hold on to batches
+    public RowBatch copy() {
+        RowBatch copy = new RowBatch(schema, Math.max(1, size));
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].copyInto(copy.columns[i], size);
+        }
+        copy.size = size;
+        return copy;
+    }
+
+    // Forgets the previous batch's null flags; values are simply overwritten
+    public void reset() {
+        for (ColumnVector column : columns) {
+            column.clearNulls(size);
+        }
+        size = 0;
+    }
+}
@@ -0,0 +1,365 @@
+package com.parquetviewer.reader;
+
+import org.apache.parquet.ParquetReadOptions;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.ColumnReader;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.column.impl.ColumnReadStoreImpl;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnPath;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.Converter;
+import org.apache.parquet.io.api.GroupConverter;
+import org.apache.parquet.io.api.PrimitiveConverter;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes flat Parquet columns straight from the column readers into a reusable
+ * {@link RowBatch}, without building a record or boxing a value per cell.
+ *
+ * Only top-level, non-repeated primitive columns are supported (see {@link #supports});
+ * nested projections still go through the Avro record reader.
+ */
+public class VectorizedParquetReader implements Closeable {
+
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+
+    // Larger dictionaries, or chunks that fell back to plain pages, stop being memoized
+    private static final int DICTIONARY_MEMO_LIMIT = 4096;
+
+    private static final GroupConverter DISCARDING_CONVERTER = new GroupConverter() {
+        private final PrimitiveConverter primitive = new PrimitiveConverter() {
+        };
+
+        @Override
+        public Converter getConverter(int fieldIndex) {
+            return primitive;
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void end() {
+        }
+    };
+
+    private final ParquetFileReader reader;
+    private final MessageType projection;
+    private final List<ColumnDescriptor> descriptors;
+    private final List<BlockMetaData> blocks;
+    private final String createdBy;
+    private final RowBatch batch;
+    private final ColumnReader[] columnReaders;
+    private final BinaryDecoder[] binaryDecoders;
+    private int nextBlock;
+    private long rowsLeftInGroup;
+
+    public VectorizedParquetReader(InputFile file, MessageType projection, int batchSize) throws IOException {
+        this(file, projection, batchSize, ParquetReadOptions.builder().build());
+    }
+
+    public VectorizedParquetReader(InputFile file, MessageType projection, int batchSize,
+                                   ParquetReadOptions options) throws IOException {
+        if (!supports(projection)) {
+            throw new IllegalArgumentException("Vectorized reads need flat primitive columns: " + projection);
+        }
+        this.reader = ParquetFileReader.open(file, options);
+        this.projection = projection;
+        this.descriptors = projection.getColumns();
+        this.blocks = reader.getRowGroups();
+        this.createdBy = reader.getFileMetaData().getCreatedBy();
+        this.batch = new RowBatch(projection, Math.max(1, batchSize));
+        this.columnReaders = new ColumnReader[descriptors.size()];
+        this.binaryDecoders = new BinaryDecoder[descriptors.size()];
+        for (int i = 0; i < descriptors.size(); i++) {
+            PrimitiveType type = descriptors.get(i).getPrimitiveType();
+            if (ColumnVector.kindOf(type) == ColumnVector.Kind.STRING) {
+                binaryDecoders[i] = new BinaryDecoder(type);
+            }
+        }
+        reader.setRequestedSchema(projection);
+    }
+
+    public static boolean supports(MessageType projection) {
+        for (Type field : projection.getFields()) {
+            if (ColumnVector.kindOf(field) == ColumnVector.Kind.OBJECT) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Row groups this reader covers, after any range or statistics filtering in the read options
+    public List<BlockMetaData> getRowGroups() {
+        return blocks;
+    }
+
+    public RowBatch nextBatch() throws IOException {
+        return nextBatch(batch.capacity());
+    }
+
+    /**
+     * Decodes up to {@code maxRows} rows into the shared batch, never crossing a row
+     * group boundary. Returns null once the file is exhausted.
+     */
+    public RowBatch nextBatch(int maxRows) throws IOException {
+        if (maxRows <= 0) {
+            return null;
+        }
+        while (rowsLeftInGroup == 0) {
+            if (!advance()) {
+                return null;
+            }
+        }
+        int n = (int) Math.min(Math.min(maxRows, batch.capacity()), rowsLeftInGroup);
+        batch.reset();
+        for (int c = 0; c < columnReaders.length; c++) {
+            decode(c, n);
+        }
+        batch.setSize(n);
+        rowsLeftInGroup -= n;
+        return batch;
+    }
+
+    /**
+     * Skips rows without decoding them. Whole row groups are skipped without
+     * fetching their pages; within a group only levels are read.
+     */
+    public void skipRows(long rows) throws IOException {
+        while (rows > 0) {
+            if (rowsLeftInGroup == 0) {
+                if (nextBlock >= blocks.size()) {
+                    return;
+                }
+                long groupRows = blocks.get(nextBlock).getRowCount();
+                if (rows >= groupRows) {
+                    reader.skipNextRowGroup();
+                    nextBlock++;
+                    rows -= groupRows;
+                    continue;
+                }
+                if (!advance()) {
+                    return;
+                }
+            }
+            long n = Math.min(rows, rowsLeftInGroup);
+            for (int c = 0; c < columnReaders.length; c++) {
+                ColumnReader in = columnReaders[c];
+                int maxDefinitionLevel = descriptors.get(c).getMaxDefinitionLevel();
+                for (long i = 0; i < n; i++) {
+                    if (in.getCurrentDefinitionLevel() == maxDefinitionLevel) {
+                        in.skip();
+                    }
+                    in.consume();
+                }
+            }
+            rowsLeftInGroup -= n;
+            rows -= n;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private boolean advance() throws IOException {
+        PageReadStore pages = reader.readNextRowGroup();
+        if (pages == null) {
+            return false;
+        }
+        BlockMetaData block = blocks.get(nextBlock++);
+        ColumnReadStoreImpl store = new ColumnReadStoreImpl(pages, DISCARDING_CONVERTER, projection, createdBy);
+        for (int c = 0; c < descriptors.size(); c++) {
+            columnReaders[c] = store.getColumnReader(descriptors.get(c));
+            if (binaryDecoders[c] != null) {
+                binaryDecoders[c].reset(usesDictionary(block, descriptors.get(c)));
+            }
+        }
+        rowsLeftInGroup = pages.getRowCount();
+        return true;
+    }
+
+    private static boolean usesDictionary(BlockMetaData block, ColumnDescriptor descriptor) {
+        ColumnPath path = ColumnPath.get(descriptor.getPath());
+        for (ColumnChunkMetaData chunk : block.getColumns()) {
+            if (chunk.getPath().equals(path)) {
+                for (Encoding encoding : chunk.getEncodings()) {
+                    if (encoding.usesDictionary()) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private void decode(int c, int n) {
+        ColumnReader in = columnReaders[c];
+        ColumnVector out = batch.column(c);
+        int maxDefinitionLevel = descriptors.get(c).getMaxDefinitionLevel();
+        boolean[] nulls = out.nulls();
+
+        // One tight loop per physical type so the JIT sees a monomorphic body
+        switch (out.getKind()) {
+            case INT: {
+                int[] values = out.ints();
+                for (int i = 0; i < n; i++) {
+                    if (in.getCurrentDefinitionLevel() == maxDefinitionLevel) {
+                        values[i] = in.getInteger();
+                    } else {
+                        nulls[i] = true;
+                    }
+                    in.consume();
+                }
+                break;
+            }
+            case LONG: {
+                long[] values = out.longs();
+                for (int i = 0; i < n; i++) {
+                    if (in.getCurrentDefinitionLevel() == maxDefinitionLevel) {
+                        values[i] = in.getLong();
+                    } else {
+                        nulls[i] = true;
+                    }
+                    in.consume();
+                }
+                break;
+            }
+            case FLOAT: {
+                float[] values = out.floats();
+                for (int i = 0; i < n; i++) {
+                    if (in.getCurrentDefinitionLevel() == maxDefinitionLevel) {
+                        values[i] = in.getFloat();
+                    } else {
+                        nulls[i] = true;
+                    }
+                    in.consume();
+                }
+                break;
+            }
+            case DOUBLE: {
+                double[] values = out.doubles();
+                for (int i = 0; i < n; i++) {
+                    if (in.getCurrentDefinitionLevel() == maxDefinitionLevel) {
+                        values[i] = in.getDouble();
+                    } else {
+                        nulls[i] = true;
+                    }
+                    in.consume();
+                }
+                break;
+            }
+            case BOOLEAN: {
+                boolean[] values = out.booleans();
+                for (int i = 0; i < n; i++) {
+                    if (in.getCurrentDefinitionLevel() == maxDefinitionLevel) {
+                        values[i] = in.getBoolean();
+                    } else {
+                        nulls[i] = true;
+                    }
+                    in.consume();
+                }
+                break;
+            }
+            default: {
+                Object[] values = out.objects();
+                BinaryDecoder decoder = binaryDecoders[c];
+                for (int i = 0; i < n; i++) {
+                    if (in.getCurrentDefinitionLevel() == maxDefinitionLevel) {
+                        values[i] = decoder.decode(in.getBinary());
+                    } else {
+                        nulls[i] = true;
+                        values[i] = null;
+                    }
+                    in.consume();
+                }
+            }
+        }
+    }
+
+    /**
+     * Turns binary values into the same strings the record path produces: UTF-8 for
+     * string-annotated columns, trimmed UTF-8 for raw bytes, hex for fixed-length and INT96.
+     *
+     * Dictionary pages hand out the same Binary instance for every occurrence of an entry,
+     * so decoded strings are memoized by identity and each entry is decoded once per chunk.
+     */
+    private static final class BinaryDecoder {
+        private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+        private enum Mode { UTF8, UTF8_TRIM, HEX }
+
+        private final Mode mode;
+        private final Map<Binary, String> memo = new IdentityHashMap<>();
+        private boolean memoize;
+
+        BinaryDecoder(PrimitiveType type) {
+            LogicalTypeAnnotation annotation = type.getLogicalTypeAnnotation();
+            if (type.getPrimitiveTypeName() != PrimitiveType.PrimitiveTypeName.BINARY) {
+                mode = Mode.HEX;
+            } else if (annotation instanceof LogicalTypeAnnotation.StringLogicalTypeAnnotation
+                    || annotation instanceof LogicalTypeAnnotation.EnumLogicalTypeAnnotation
+                    || annotation instanceof LogicalTypeAnnotation.JsonLogicalTypeAnnotation) {
+                mode = Mode.UTF8;
+            } else {
+                mode = Mode.UTF8_TRIM;
+            }
+        }
+
+        void reset(boolean dictionaryEncoded) {
+            memo.clear();
+            memoize = dictionaryEncoded;
+        }
+
+        String decode(Binary binary) {
+            if (!memoize) {
+                return convert(binary);
+            }
+            String value = memo.get(binary);
+            if (value == null) {
+                value = convert(binary);
+                if (memo.size() < DICTIONARY_MEMO_LIMIT) {
+                    memo.put(binary, value);
+                } else {
+                    memo.clear();
+                    memoize = false;
+                }
+            }
+            return value;
+        }
+
+        private String convert(Binary binary) {
+            switch (mode) {
+                case UTF8:
+                    return binary.toStringUsingUTF8();
+                case UTF8_TRIM:
+                    return binary.toStringUsingUTF8().trim();
+                default:
+                    byte[] bytes = binary.getBytesUnsafe();
+                    char[] chars = new char[bytes.length * 2];
+                    for (int i = 0; i < bytes.length; i++) {
+                        chars[2 * i] = HEX[(bytes[i] >> 4) & 0x0F];
+                        chars[2 * i + 1] = HEX[bytes[i] & 0x0F];
+                    }
+                    return new String(chars);
+            }
+        }
+    }
+}
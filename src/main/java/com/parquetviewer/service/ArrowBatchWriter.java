@@ -0,0 +1,151 @@
+package com.parquetviewer.service;
+
+import com.parquetviewer.reader.ColumnVector;
+import com.parquetviewer.reader.RowBatch;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.parquet.schema.MessageType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes decoded batches as Arrow IPC stream record batches, one record batch per
+ * {@link RowBatch}. Numeric and boolean columns are copied into fixed-width vectors;
+ * everything else is sent as UTF-8 text.
+ */
+class ArrowBatchWriter implements AutoCloseable {
+
+    static final String CONTENT_TYPE = "application/vnd.apache.arrow.stream";
+
+    private final BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+    private final VectorSchemaRoot root;
+    private final ArrowStreamWriter writer;
+
+    ArrowBatchWriter(MessageType projection, OutputStream outputStream) throws IOException {
+        List<Field> fields = new ArrayList<>();
+        for (int i = 0; i < projection.getFieldCount(); i++) {
+            ColumnVector.Kind kind = ColumnVector.kindOf(projection.getType(i));
+            fields.add(new Field(projection.getFieldName(i), FieldType.nullable(arrowType(kind)), null));
+        }
+        this.root = VectorSchemaRoot.create(new Schema(fields), allocator);
+        this.writer = new ArrowStreamWriter(root, new DictionaryProvider.MapDictionaryProvider(), outputStream);
+        writer.start();
+    }
+
+    void write(RowBatch batch) throws IOException {
+        int size = batch.size();
+        List<FieldVector> vectors = root.getFieldVectors();
+        for (int c = 0; c < vectors.size(); c++) {
+            FieldVector vector = vectors.get(c);
+            ColumnVector column = batch.column(c);
+            vector.clear();
+            vector.allocateNew();
+            // Null slots are left unset, so their validity bit stays clear
+            switch (column.getKind()) {
+                case INT: {
+                    IntVector out = (IntVector) vector;
+                    for (int i = 0; i < size; i++) {
+                        if (!column.isNull(i)) {
+                            out.setSafe(i, column.getInt(i));
+                        }
+                    }
+                    break;
+                }
+                case LONG: {
+                    BigIntVector out = (BigIntVector) vector;
+                    for (int i = 0; i < size; i++) {
+                        if (!column.isNull(i)) {
+                            out.setSafe(i, column.getLong(i));
+                        }
+                    }
+                    break;
+                }
+                case FLOAT: {
+                    Float4Vector out = (Float4Vector) vector;
+                    for (int i = 0; i < size; i++) {
+                        if (!column.isNull(i)) {
+                            out.setSafe(i, column.getFloat(i));
+                        }
+                    }
+                    break;
+                }
+                case DOUBLE: {
+                    Float8Vector out = (Float8Vector) vector;
+                    for (int i = 0; i < size; i++) {
+                        if (!column.isNull(i)) {
+                            out.setSafe(i, column.getDouble(i));
+                        }
+                    }
+                    break;
+                }
+                case BOOLEAN: {
+                    BitVector out = (BitVector) vector;
+                    for (int i = 0; i < size; i++) {
+                        if (!column.isNull(i)) {
+                            out.setSafe(i, column.getBoolean(i) ? 1 : 0);
+                        }
+                    }
+                    break;
+                }
+                default: {
+                    VarCharVector out = (VarCharVector) vector;
+                    for (int i = 0; i < size; i++) {
+                        if (!column.isNull(i)) {
+                            out.setSafe(i, String.valueOf(column.getObject(i)).getBytes(StandardCharsets.UTF_8));
+                        }
+                    }
+                }
+            }
+            vector.setValueCount(size);
+        }
+        root.setRowCount(size);
+        writer.writeBatch();
+    }
+
+    // Writes the end-of-stream marker
+    void finish() throws IOException {
+        writer.end();
+    }
+
+    @Override
+    public void close() {
+        root.close();
+        allocator.close();
+    }
+
+    private static ArrowType arrowType(ColumnVector.Kind kind) {
+        switch (kind) {
+            case INT:
+                return new ArrowType.Int(32, true);
+            case LONG:
+                return new ArrowType.Int(64, true);
+            case FLOAT:
+                return new ArrowType.FloatingPoint(FloatingPointPrecision.SINGLE);
+            case DOUBLE:
+                return new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+            case BOOLEAN:
+                return new ArrowType.Bool();
+            default:
+                return new ArrowType.Utf8();
+        }
+    }
+}
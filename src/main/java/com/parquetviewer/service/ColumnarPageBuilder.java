@@ -0,0 +1,230 @@
+package com.parquetviewer.service;
+
+import com.parquetviewer.model.ColumnarData;
+import com.parquetviewer.model.ParquetColumn;
+import com.parquetviewer.reader.ColumnVector;
+import com.parquetviewer.reader.RowBatch;
+import org.apache.parquet.schema.MessageType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Accumulates a page column-major: one typed array per column plus a null bitmap,
+ * so no per-row map or repeated key strings are built. Numeric and boolean columns
+ * stay primitive and are bulk-copied out of each decoded batch; a null slot holds
+ * whatever the decoder left there and is flagged in the bitmap.
+ */
+class ColumnarPageBuilder {
+
+    private final List<String> names = new ArrayList<>();
+    private final List<String> types = new ArrayList<>();
+    private final List<Vector> vectors = new ArrayList<>();
+    private int rowCount;
+
+    ColumnarPageBuilder(MessageType projection, List<ParquetColumn> columns, int capacity) {
+        int initialCapacity = Math.max(1, Math.min(capacity, 4096));
+        for (int i = 0; i < projection.getFieldCount(); i++) {
+            names.add(projection.getFieldName(i));
+            types.add(columns.get(i).getType());
+            vectors.add(vectorFor(ColumnVector.kindOf(projection.getType(i)), initialCapacity));
+        }
+    }
+
+    void append(RowBatch batch) {
+        int size = batch.size();
+        for (int c = 0; c < vectors.size(); c++) {
+            Vector vector = vectors.get(c);
+            ColumnVector column = batch.column(c);
+            vector.ensure(rowCount + size);
+            vector.copy(column, rowCount, size);
+            for (int i = 0; i < size; i++) {
+                if (column.isNull(i)) {
+                    vector.nulls.set(rowCount + i);
+                }
+            }
+        }
+        rowCount += size;
+    }
+
+    ColumnarData build(long totalRows, int currentPage, int pageSize) {
+        List<Object> values = new ArrayList<>(vectors.size());
+        List<String> nullBitmaps = new ArrayList<>(vectors.size());
+        for (Vector vector : vectors) {
+            values.add(vector.values(rowCount));
+            nullBitmaps.add(vector.nulls.isEmpty()
+                    ? null
+                    : Base64.getEncoder().encodeToString(vector.nulls.toByteArray()));
+        }
+        return new ColumnarData(names, types, values, nullBitmaps, rowCount, totalRows, currentPage, pageSize);
+    }
+
+    private static Vector vectorFor(ColumnVector.Kind kind, int capacity) {
+        switch (kind) {
+            case INT:
+                return new IntVector(capacity);
+            case LONG:
+                return new LongVector(capacity);
+            case FLOAT:
+            case DOUBLE:
+                return new DoubleVector(capacity);
+            case BOOLEAN:
+                return new BooleanVector(capacity);
+            default:
+                return new ObjectVector(capacity);
+        }
+    }
+
+    private abstract static class Vector {
+        final BitSet nulls = new BitSet();
+
+        abstract void ensure(int size);
+
+        abstract void copy(ColumnVector column, int offset, int size);
+
+        abstract Object values(int rowCount);
+
+        static int grow(int length, int size) {
+            int newLength = length;
+            while (newLength < size) {
+                newLength *= 2;
+            }
+            return newLength;
+        }
+    }
+
+    private static class IntVector extends Vector {
+        private int[] data;
+
+        IntVector(int capacity) {
+            data = new int[capacity];
+        }
+
+        @Override
+        void ensure(int size) {
+            if (size > data.length) {
+                data = Arrays.copyOf(data, grow(data.length, size));
+            }
+        }
+
+        @Override
+        void copy(ColumnVector column, int offset, int size) {
+            System.arraycopy(column.ints(), 0, data, offset, size);
+        }
+
+        @Override
+        Object values(int rowCount) {
+            return Arrays.copyOf(data, rowCount);
+        }
+    }
+
+    private static class LongVector extends Vector {
+        private long[] data;
+
+        LongVector(int capacity) {
+            data = new long[capacity];
+        }
+
+        @Override
+        void ensure(int size) {
+            if (size > data.length) {
+                data = Arrays.copyOf(data, grow(data.length, size));
+            }
+        }
+
+        @Override
+        void copy(ColumnVector column, int offset, int size) {
+            System.arraycopy(column.longs(), 0, data, offset, size);
+        }
+
+        @Override
+        Object values(int rowCount) {
+            return Arrays.copyOf(data, rowCount);
+        }
+    }
+
+    private static class DoubleVector extends Vector {
+        private double[] data;
+
+        DoubleVector(int capacity) {
+            data = new double[capacity];
+        }
+
+        @Override
+        void ensure(int size) {
+            if (size > data.length) {
+                data = Arrays.copyOf(data, grow(data.length, size));
+            }
+        }
+
+        @Override
+        void copy(ColumnVector column, int offset, int size) {
+            if (column.getKind() == ColumnVector.Kind.DOUBLE) {
+                System.arraycopy(column.doubles(), 0, data, offset, size);
+            } else {
+                float[] floats = column.floats();
+                for (int i = 0; i < size; i++) {
+                    data[offset + i] = floats[i];
+                }
+            }
+        }
+
+        @Override
+        Object values(int rowCount) {
+            return Arrays.copyOf(data, rowCount);
+        }
+    }
+
+    private static class BooleanVector extends Vector {
+        private boolean[] data;
+
+        BooleanVector(int capacity) {
+            data = new boolean[capacity];
+        }
+
+        @Override
+        void ensure(int size) {
+            if (size > data.length) {
+                data = Arrays.copyOf(data, grow(data.length, size));
+            }
+        }
+
+        @Override
+        void copy(ColumnVector column, int offset, int size) {
+            System.arraycopy(column.booleans(), 0, data, offset, size);
+        }
+
+        @Override
+        Object values(int rowCount) {
+            return Arrays.copyOf(data, rowCount);
+        }
+    }
+
+    private static class ObjectVector extends Vector {
+        private Object[] data;
+
+        ObjectVector(int capacity) {
+            data = new Object[capacity];
+        }
+
+        @Override
+        void ensure(int size) {
+            if (size > data.length) {
+                data = Arrays.copyOf(data, grow(data.length, size));
+            }
+        }
+
+        @Override
+        void copy(ColumnVector column, int offset, int size) {
+            System.arraycopy(column.objects(), 0, data, offset, size);
+        }
+
+        @Override
+        Object values(int rowCount) {
+            return Arrays.copyOf(data, rowCount);
+        }
+    }
+}
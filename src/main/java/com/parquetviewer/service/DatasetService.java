@@ -0,0 +1,387 @@
+package com.parquetviewer.service;
+
+import com.parquetviewer.config.DatasetConfig;
+import com.parquetviewer.config.S3ClientConfig;
+import com.parquetviewer.model.ParquetDataset;
+import com.parquetviewer.model.ParquetFile;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.GroupType;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+import org.apache.parquet.schema.Types;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Treats each top-level directory under the configured prefix as one logical table.
+ * Files anywhere beneath it belong to the dataset, and {@code key=value} directories
+ * on the way become partition columns, typed INT64 when every value is an integer and
+ * as strings otherwise.
+ *
+ * Opening a dataset fetches every footer concurrently and merges the file schemas;
+ * the result is kept until the catalog re-lists, so pages only read row data.
+ */
+@Service
+@Slf4j
+public class DatasetService {
+
+    private static final String DEFAULT_PARTITION = "__HIVE_DEFAULT_PARTITION__";
+
+    private final S3ClientConfig s3ClientConfig;
+    private final FileCatalogService catalog;
+    private final ParquetFooterReader footerReader;
+    private final DatasetConfig datasetConfig;
+    private final ExecutorService footerExecutor;
+
+    private volatile Listing listing;
+    private final Map<String, Dataset> opened;
+
+    @Autowired
+    public DatasetService(S3ClientConfig s3ClientConfig, FileCatalogService catalog, ParquetFooterReader footerReader,
+                          DatasetConfig datasetConfig) {
+        this.s3ClientConfig = s3ClientConfig;
+        this.catalog = catalog;
+        this.footerReader = footerReader;
+        this.datasetConfig = datasetConfig;
+        this.opened = new LinkedHashMap<String, Dataset>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Dataset> eldest) {
+                return size() > datasetConfig.getMaxCachedDatasets();
+            }
+        };
+        AtomicInteger threadCount = new AtomicInteger();
+        this.footerExecutor = Executors.newFixedThreadPool(Math.max(1, datasetConfig.getFooterThreads()), r -> {
+            Thread thread = new Thread(r, "dataset-footer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        footerExecutor.shutdownNow();
+    }
+
+    public List<ParquetDataset> getDatasets() {
+        List<ParquetDataset> datasets = new ArrayList<>();
+        for (DatasetFiles files : currentListing().byId.values()) {
+            datasets.add(files.descriptor);
+        }
+        return datasets;
+    }
+
+    /**
+     * Returns the dataset with its files' footers and merged schema. Throws
+     * IllegalArgumentException when two files disagree on a column's type.
+     */
+    Dataset getDataset(String datasetId) throws IOException {
+        DatasetFiles files = currentListing().byId.get(datasetId);
+        if (files == null) {
+            throw new RuntimeException("Dataset not found with ID: " + datasetId);
+        }
+        synchronized (opened) {
+            Dataset dataset = opened.get(datasetId);
+            if (dataset != null && dataset.files == files) {
+                return dataset;
+            }
+        }
+        Dataset dataset = open(files);
+        synchronized (opened) {
+            opened.put(datasetId, dataset);
+        }
+        return dataset;
+    }
+
+    // Regrouped only when the catalog hands out a new listing
+    private Listing currentListing() {
+        List<ParquetFile> files = catalog.getFiles();
+        Listing current = listing;
+        if (current == null || current.files != files) {
+            current = group(files);
+            listing = current;
+        }
+        return current;
+    }
+
+    private Listing group(List<ParquetFile> files) {
+        String prefix = s3ClientConfig.getPrefix() == null ? "" : s3ClientConfig.getPrefix();
+        Map<String, DatasetFiles> byName = new TreeMap<>();
+        for (ParquetFile file : files) {
+            String key = catalog.getKey(file);
+            if (!key.startsWith(prefix)) {
+                continue;
+            }
+            String[] segments = key.substring(prefix.length()).split("/");
+            // Loose files under the prefix belong to no dataset; neither do hidden or temporary ones
+            if (segments.length < 2
+                    || Arrays.stream(segments).anyMatch(s -> s.startsWith("_") || s.startsWith("."))) {
+                continue;
+            }
+            Map<String, String> partitions = new LinkedHashMap<>();
+            for (int i = 1; i < segments.length - 1; i++) {
+                int equals = segments[i].indexOf('=');
+                if (equals > 0) {
+                    String value = unescape(segments[i].substring(equals + 1));
+                    partitions.put(unescape(segments[i].substring(0, equals)),
+                            DEFAULT_PARTITION.equals(value) ? null : value);
+                }
+            }
+            byName.computeIfAbsent(segments[0], name -> new DatasetFiles(name, prefix + name + "/"))
+                    .add(file, partitions);
+        }
+
+        Map<String, DatasetFiles> byId = new LinkedHashMap<>();
+        for (DatasetFiles dataset : byName.values()) {
+            byId.put(dataset.descriptor.getId(), dataset);
+        }
+        return new Listing(files, byId);
+    }
+
+    // Hive escapes path characters as %XX; a literal '+' stays a plus
+    private static String unescape(String segment) {
+        return URLDecoder.decode(segment.replace("+", "%2B"), StandardCharsets.UTF_8);
+    }
+
+    private Dataset open(DatasetFiles files) throws IOException {
+        List<Callable<ParquetMetadata>> tasks = new ArrayList<>();
+        for (ParquetFile file : files.files) {
+            tasks.add(() -> footerReader.readFooter(catalog.openInputFile(file)));
+        }
+        List<ParquetMetadata> footers = new ArrayList<>();
+        try {
+            for (Future<ParquetMetadata> footer : footerExecutor.invokeAll(tasks)) {
+                footers.add(footer.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading dataset footers");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to read dataset footers", e.getCause());
+        }
+
+        // Columns in order of first appearance; any a file lacks becomes optional
+        Map<String, Type> columns = new LinkedHashMap<>();
+        Map<String, Integer> presentIn = new HashMap<>();
+        for (int f = 0; f < footers.size(); f++) {
+            for (Type field : footers.get(f).getFileMetaData().getSchema().getFields()) {
+                Type existing = columns.get(field.getName());
+                if (files.partitionColumns.contains(field.getName())) {
+                    throw new IllegalArgumentException("Partition column " + field.getName()
+                            + " is also a column of " + files.files.get(f).getName());
+                }
+                if (existing != null && !relaxed(existing).equals(relaxed(field))) {
+                    throw new IllegalArgumentException("Column " + field.getName() + " has conflicting types: "
+                            + existing + " and " + field + " in " + files.files.get(f).getName());
+                }
+                if (existing == null || field.isRepetition(Type.Repetition.OPTIONAL)) {
+                    columns.put(field.getName(), field);
+                }
+                presentIn.merge(field.getName(), 1, Integer::sum);
+            }
+        }
+        List<Type> fields = new ArrayList<>();
+        for (Type field : columns.values()) {
+            fields.add(presentIn.get(field.getName()) < footers.size() ? relaxed(field) : field);
+        }
+
+        Map<String, Boolean> integral = new LinkedHashMap<>();
+        for (String column : files.partitionColumns) {
+            boolean allIntegers = true;
+            for (Map<String, String> values : files.partitions) {
+                String value = values.get(column);
+                allIntegers &= value == null || value.matches("-?\\d{1,18}");
+            }
+            integral.put(column, allIntegers);
+            fields.add(allIntegers
+                    ? Types.optional(PrimitiveType.PrimitiveTypeName.INT64).named(column)
+                    : Types.optional(PrimitiveType.PrimitiveTypeName.BINARY)
+                            .as(LogicalTypeAnnotation.stringType()).named(column));
+        }
+        MessageType schema = new MessageType(files.descriptor.getName(), fields);
+
+        List<Member> members = new ArrayList<>();
+        for (int f = 0; f < footers.size(); f++) {
+            MessageType fileSchema = footers.get(f).getFileMetaData().getSchema();
+            Map<String, Object> rowValues = new HashMap<>();
+            Map<String, Object> knownValues = new HashMap<>();
+            for (Map.Entry<String, Boolean> partition : integral.entrySet()) {
+                String value = files.partitions.get(f).get(partition.getKey());
+                Object typed = value == null ? null : partition.getValue() ? (Object) Long.valueOf(value) : value;
+                rowValues.put(partition.getKey(), typed);
+                knownValues.put(partition.getKey(), typed instanceof String ? Binary.fromString(value) : typed);
+            }
+            for (String column : columns.keySet()) {
+                if (!fileSchema.containsField(column)) {
+                    knownValues.put(column, null);
+                }
+            }
+            members.add(new Member(files.files.get(f), footers.get(f), rowValues, knownValues));
+        }
+        log.debug("Opened dataset {}: {} files, {} columns", files.descriptor.getName(), members.size(),
+                schema.getFieldCount());
+        return new Dataset(files, schema, members, datasetConfig.getMaxCachedCounts());
+    }
+
+    // The field as it compares across files: required and optional are interchangeable
+    private static Type relaxed(Type field) {
+        Type.Repetition repetition = field.isRepetition(Type.Repetition.REPEATED)
+                ? Type.Repetition.REPEATED : Type.Repetition.OPTIONAL;
+        if (!field.isPrimitive()) {
+            GroupType group = field.asGroupType();
+            return Types.buildGroup(repetition).as(group.getLogicalTypeAnnotation())
+                    .addFields(group.getFields().toArray(new Type[0])).named(group.getName());
+        }
+        PrimitiveType primitive = field.asPrimitiveType();
+        Types.PrimitiveBuilder<PrimitiveType> builder = Types.primitive(primitive.getPrimitiveTypeName(), repetition);
+        if (primitive.getPrimitiveTypeName() == PrimitiveType.PrimitiveTypeName.FIXED_LEN_BYTE_ARRAY) {
+            builder.length(primitive.getTypeLength());
+        }
+        return builder.as(primitive.getLogicalTypeAnnotation()).named(primitive.getName());
+    }
+
+    private static final class Listing {
+        final List<ParquetFile> files;   // The catalog listing this was grouped from
+        final Map<String, DatasetFiles> byId;
+
+        Listing(List<ParquetFile> files, Map<String, DatasetFiles> byId) {
+            this.files = files;
+            this.byId = byId;
+        }
+    }
+
+    private final class DatasetFiles {
+        final ParquetDataset descriptor = new ParquetDataset();
+        final List<ParquetFile> files = new ArrayList<>();
+        final List<Map<String, String>> partitions = new ArrayList<>();   // Parallel to files
+        final Set<String> partitionColumns = new LinkedHashSet<>();
+
+        DatasetFiles(String name, String keyPrefix) {
+            descriptor.setId(FileCatalogService.idFor("dataset/" + keyPrefix));
+            descriptor.setName(name);
+            descriptor.setPath("s3://" + s3ClientConfig.getBucketName() + "/" + keyPrefix);
+            descriptor.setPartitionColumns(new ArrayList<>());
+        }
+
+        void add(ParquetFile file, Map<String, String> values) {
+            files.add(file);
+            partitions.add(values);
+            for (String column : values.keySet()) {
+                if (partitionColumns.add(column)) {
+                    descriptor.getPartitionColumns().add(column);
+                }
+            }
+            descriptor.setFileCount(files.size());
+            descriptor.setSize(descriptor.getSize() + file.getSize());
+            // ISO-8601 instants order as strings
+            String lastModified = descriptor.getLastModified();
+            if (lastModified == null || file.getLastModified().compareTo(lastModified) > 0) {
+                descriptor.setLastModified(file.getLastModified());
+            }
+        }
+    }
+
+    /**
+     * An opened dataset: its files in key order with their footers, and the merged schema,
+     * whose partition columns follow the file columns.
+     */
+    static final class Dataset {
+        private final DatasetFiles files;
+        private final MessageType schema;
+        private final List<Member> members;
+        private final Map<String, long[][]> filteredCounts;
+
+        Dataset(DatasetFiles files, MessageType schema, List<Member> members, int maxCachedCounts) {
+            this.files = files;
+            this.schema = schema;
+            this.members = members;
+            this.filteredCounts = new LinkedHashMap<String, long[][]>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, long[][]> eldest) {
+                    return size() > maxCachedCounts;
+                }
+            };
+        }
+
+        ParquetDataset getDescriptor() {
+            return files.descriptor;
+        }
+
+        MessageType getSchema() {
+            return schema;
+        }
+
+        List<Member> getMembers() {
+            return members;
+        }
+
+        // Matching rows per file and row group, as counted for an earlier request with the same filter
+        long[][] getFilteredCounts(String filter) {
+            synchronized (filteredCounts) {
+                return filteredCounts.get(filter);
+            }
+        }
+
+        void putFilteredCounts(String filter, long[][] counts) {
+            synchronized (filteredCounts) {
+                filteredCounts.put(filter, counts);
+            }
+        }
+    }
+
+    static final class Member {
+        private final ParquetFile file;
+        private final ParquetMetadata footer;
+        private final Map<String, Object> partitionValues;
+        private final Map<String, Object> knownValues;
+
+        Member(ParquetFile file, ParquetMetadata footer, Map<String, Object> partitionValues,
+               Map<String, Object> knownValues) {
+            this.file = file;
+            this.footer = footer;
+            this.partitionValues = partitionValues;
+            this.knownValues = knownValues;
+        }
+
+        ParquetFile getFile() {
+            return file;
+        }
+
+        ParquetMetadata getFooter() {
+            return footer;
+        }
+
+        boolean isPartitionColumn(String column) {
+            return partitionValues.containsKey(column);
+        }
+
+        // As a row value: Long or String, null for the default partition
+        Object getPartitionValue(String column) {
+            return partitionValues.get(column);
+        }
+
+        // Partition values typed for filter literals, plus null for each column the file lacks
+        Map<String, Object> getKnownValues() {
+            return knownValues;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.parquetviewer.service;
+
+import com.parquetviewer.config.ExportConfig;
+import com.parquetviewer.reader.ColumnVector;
+import com.parquetviewer.reader.RowBatch;
+import org.apache.parquet.schema.MessageType;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams decoded batches into an XLSX workbook.
+ *
+ * Rows beyond Excel's per-sheet limit roll over to a new sheet with its own header.
+ * Column widths are estimated from the first rows written instead of autosizing,
+ * which would track every cell. Only the header has a style, and it is shared across
+ * sheets. Heap is bounded by the SXSSF row window and temp-file disk by the row and
+ * cell limits in {@link ExportConfig}.
+ */
+class ExcelExportWriter implements AutoCloseable {
+
+    static final String CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    private static final int MAX_SHEET_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+    private static final int MAX_CELL_CHARS = SpreadsheetVersion.EXCEL2007.getMaxTextLength();
+    private static final int MAX_COLUMN_CHARS = 80;
+
+    private final SXSSFWorkbook workbook;
+    private final List<String> columnNames = new ArrayList<>();
+    private final CellStyle headerStyle;
+    private final List<SXSSFSheet> sheets = new ArrayList<>();
+    private final int[] widthChars;
+    private final long widthSampleRows;
+    private final long maxRows;
+    private SXSSFSheet sheet;
+    private int sheetRow;
+    private long rowsWritten;
+
+    ExcelExportWriter(MessageType projection, ExportConfig config) {
+        for (int i = 0; i < projection.getFieldCount(); i++) {
+            columnNames.add(projection.getFieldName(i));
+        }
+        this.maxRows = maxRows(config, columnNames.size());
+        this.widthSampleRows = config.getExcelWidthSampleRows();
+        this.widthChars = new int[columnNames.size()];
+        for (int i = 0; i < widthChars.length; i++) {
+            widthChars[i] = columnNames.get(i).length();
+        }
+
+        this.workbook = new SXSSFWorkbook(config.getExcelRowAccessWindow());
+        workbook.setCompressTempFiles(config.isExcelCompressTempFiles());
+        this.headerStyle = workbook.createCellStyle();
+        Font headerFont = workbook.createFont();
+        headerFont.setBold(true);
+        headerStyle.setFont(headerFont);
+    }
+
+    // Largest export allowed by both the row limit and the cell limit
+    static long maxRows(ExportConfig config, int columns) {
+        return Math.min(config.getExcelMaxRows(), config.getExcelMaxCells() / Math.max(1, columns));
+    }
+
+    void write(RowBatch batch) {
+        for (int row = 0; row < batch.size(); row++) {
+            if (rowsWritten == maxRows) {
+                throw new IllegalArgumentException("Excel export is limited to " + maxRows
+                        + " rows for this many columns; use CSV or narrow the columns/filter");
+            }
+            if (sheet == null || sheetRow == MAX_SHEET_ROWS) {
+                startSheet();
+            }
+            Row excelRow = sheet.createRow(sheetRow++);
+            boolean sample = rowsWritten < widthSampleRows;
+
+            for (int c = 0; c < batch.getColumnCount(); c++) {
+                ColumnVector column = batch.column(c);
+                if (column.isNull(row)) {
+                    continue;
+                }
+                Cell cell = excelRow.createCell(c);
+                if (column.isNumeric()) {
+                    double value = column.getAsDouble(row);
+                    cell.setCellValue(value);
+                    if (sample) {
+                        sampleWidth(c, Double.toString(value).length());
+                    }
+                } else if (column.getKind() == ColumnVector.Kind.BOOLEAN) {
+                    cell.setCellValue(column.getBoolean(row));
+                    if (sample) {
+                        sampleWidth(c, 5);
+                    }
+                } else {
+                    String value = column.getObject(row).toString();
+                    if (value.length() > MAX_CELL_CHARS) {
+                        value = value.substring(0, MAX_CELL_CHARS);
+                    }
+                    cell.setCellValue(value);
+                    if (sample) {
+                        sampleWidth(c, value.length());
+                    }
+                }
+            }
+            rowsWritten++;
+        }
+    }
+
+    void finish(OutputStream outputStream) throws IOException {
+        if (sheet == null) {
+            startSheet(); // header-only workbook for an empty result
+        }
+        for (SXSSFSheet target : sheets) {
+            for (int c = 0; c < widthChars.length; c++) {
+                // Width is in 1/256ths of a character, plus a little padding
+                target.setColumnWidth(c, (Math.min(widthChars[c], MAX_COLUMN_CHARS) + 2) * 256);
+            }
+        }
+        workbook.write(outputStream);
+    }
+
+    @Override
+    public void close() throws IOException {
+        workbook.dispose(); // Dispose of temporary files
+        workbook.close();
+    }
+
+    private void startSheet() {
+        sheet = workbook.createSheet(sheets.isEmpty() ? "Data" : "Data (" + (sheets.size() + 1) + ")");
+        sheets.add(sheet);
+        Row headerRow = sheet.createRow(0);
+        for (int i = 0; i < columnNames.size(); i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(columnNames.get(i));
+            cell.setCellStyle(headerStyle);
+        }
+        sheetRow = 1;
+    }
+
+    private void sampleWidth(int column, int chars) {
+        if (chars > widthChars[column]) {
+            widthChars[column] = chars;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.parquetviewer.service;
+
+/**
+ * Download formats, with the file extension and content type each is served with.
+ * Formats that are not already compressed may be sent with a Content-Encoding.
+ */
+public enum ExportFormat {
+    CSV("csv", "text/csv", true),
+    EXCEL("xlsx", ExcelExportWriter.CONTENT_TYPE, false),
+    ARROW("arrows", ArrowBatchWriter.CONTENT_TYPE, true);
+
+    private final String extension;
+    private final String contentType;
+    private final boolean compressible;
+
+    ExportFormat(String extension, String contentType, boolean compressible) {
+        this.extension = extension;
+        this.contentType = contentType;
+        this.compressible = compressible;
+    }
+
+    public static ExportFormat of(String name) {
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Invalid format. Supported formats: csv, excel, arrow");
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public boolean isCompressible() {
+        return compressible;
+    }
+}
@@ -0,0 +1,354 @@
+package com.parquetviewer.service;
+
+import com.parquetviewer.config.ExportConfig;
+import com.parquetviewer.metrics.ParquetMetrics;
+import com.parquetviewer.model.ExportJob;
+import com.parquetviewer.model.ParquetFile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Generates exports in the background and spools each one to local disk once, so
+ * repeated and resumed downloads are served from the file instead of re-reading S3.
+ *
+ * Jobs for the same file version, format, columns and filter are shared, and the
+ * result's ETag is derived from those inputs, so it stays valid across jobs.
+ * Results are sent with Tomcat's sendfile when the connector offers it and with
+ * {@link FileChannel#transferTo} otherwise; idle results expire after the configured TTL.
+ */
+@Service
+@Slf4j
+public class ExportJobService {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Only files this service wrote are ever deleted from the spool directory
+    private static final Pattern SPOOL_FILE = Pattern.compile("[0-9a-f-]{36}\\.(part|csv|xlsx|arrows)");
+
+    private final ParquetService parquetService;
+    private final FileCatalogService catalog;
+    private final ExportConfig exportConfig;
+    private final Path directory;
+    private final ExecutorService executor;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<String, String> jobIdsByKey = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ExportJobService(ParquetService parquetService, FileCatalogService catalog, ExportConfig exportConfig,
+                            ParquetMetrics metrics) throws IOException {
+        this.parquetService = parquetService;
+        this.catalog = catalog;
+        this.exportConfig = exportConfig;
+        this.directory = Paths.get(exportConfig.getJobDirectory());
+        Files.createDirectories(directory);
+        metrics.monitorDirectory("export_job", directory);
+        deleteLeftovers();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, exportConfig.getJobThreads()), r -> {
+            Thread thread = new Thread(r, "export-job-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Holds a job's public view plus what only the service needs; guarded by its own monitor
+    private static final class Job {
+        final ExportJob info;
+        final ExportFormat format;
+        final String key;
+        final Path path;
+        long expiresAtMillis = Long.MAX_VALUE;
+
+        Job(ExportJob info, ExportFormat format, String key, Path path) {
+            this.info = info;
+            this.format = format;
+            this.key = key;
+            this.path = path;
+        }
+    }
+
+    public ExportJob createJob(String fileId, String format, List<String> columns, String filter) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        ParquetFile file = catalog.getFile(fileId);
+        // Bad columns or filters are refused now rather than surfacing later as a failed job
+        parquetService.validateExport(fileId, columns, filter);
+        String key = FileCatalogService.idFor(String.join("\n", fileId, String.valueOf(file.getEtag()),
+                exportFormat.name(), String.valueOf(columns), String.valueOf(filter)));
+
+        synchronized (jobIdsByKey) {
+            String existingId = jobIdsByKey.get(key);
+            Job existing = existingId == null ? null : jobs.get(existingId);
+            if (existing != null) {
+                synchronized (existing) {
+                    if (existing.info.getStatus() != ExportJob.Status.FAILED) {
+                        return snapshot(existing);
+                    }
+                }
+            }
+
+            String id = UUID.randomUUID().toString();
+            ExportJob info = new ExportJob();
+            info.setId(id);
+            info.setFileId(fileId);
+            info.setFileName(file.getName().replace(".parquet", "") + "." + exportFormat.getExtension());
+            info.setFormat(exportFormat.name().toLowerCase());
+            info.setColumns(columns);
+            info.setFilter(filter);
+            info.setStatus(ExportJob.Status.PENDING);
+            info.setCreatedAt(Instant.now().toString());
+            info.setResultUrl("/api/exports/" + id + "/result");
+
+            Job job = new Job(info, exportFormat, key, directory.resolve(id + "." + exportFormat.getExtension()));
+            jobs.put(id, job);
+            jobIdsByKey.put(key, id);
+            ExportJob created = snapshot(job);
+            executor.submit(() -> run(job));
+            log.info("Queued {} export {} of {}", info.getFormat(), id, file.getName());
+            return created;
+        }
+    }
+
+    public ExportJob getJob(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            return null;
+        }
+        synchronized (job) {
+            return snapshot(job);
+        }
+    }
+
+    private void run(Job job) {
+        String id = job.info.getId();
+        synchronized (job) {
+            job.info.setStatus(ExportJob.Status.RUNNING);
+        }
+
+        // Written under a temporary name and renamed, so a result file is always complete
+        Path part = directory.resolve(id + ".part");
+        try {
+            try (OutputStream out = new BufferedOutputStream(
+                    Files.newOutputStream(part), exportConfig.getOutputBufferBytes())) {
+                parquetService.writeExport(job.info.getFileId(), job.format, job.info.getColumns(),
+                        job.info.getFilter(), out);
+            }
+            Files.move(part, job.path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            long size = Files.size(job.path);
+            synchronized (job) {
+                job.info.setStatus(ExportJob.Status.COMPLETED);
+                job.info.setSizeBytes(size);
+                job.info.setCompletedAt(Instant.now().toString());
+                touch(job);
+            }
+            log.info("Export {} completed: {} bytes", id, size);
+        } catch (Exception e) {
+            log.error("Export job {} failed", id, e);
+            deleteQuietly(part);
+            synchronized (job) {
+                job.info.setStatus(ExportJob.Status.FAILED);
+                job.info.setError(e.getMessage());
+                job.info.setCompletedAt(Instant.now().toString());
+                touch(job);
+            }
+        }
+    }
+
+    /**
+     * Sends a finished export, honouring If-None-Match, Range and If-Range. A single
+     * byte range is answered with 206; multiple ranges fall back to the whole file.
+     */
+    public void serveResult(String jobId, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            response.sendError(404, "Export job not found: " + jobId);
+            return;
+        }
+        long length;
+        synchronized (job) {
+            if (job.info.getStatus() != ExportJob.Status.COMPLETED) {
+                response.sendError(409, "Export job is " + job.info.getStatus());
+                return;
+            }
+            length = job.info.getSizeBytes();
+            touch(job);
+        }
+
+        String etag = "\"" + job.key + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] bounds = parseRange(range, length);
+            if (bounds == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        response.setContentType(job.format.getContentType());
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + job.info.getFileName() + "\"");
+        response.setContentLengthLong(end - start + 1);
+        if (end < start) {
+            return; // empty export
+        }
+
+        // Tomcat streams the file itself with sendfile once this request returns
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, job.path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(job.path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = end - start + 1;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * Parses a Range header against the file length. Returns {start, end} inclusive, an
+     * empty array when the header should be ignored (malformed or multiple ranges), or
+     * null when the range cannot be satisfied.
+     */
+    private long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // Suffix range: the final N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) {
+                    return null;
+                }
+                return new long[]{Math.max(0, length - suffix), length - 1};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            if (start >= length || start > end) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${parquet.export.jobCleanupIntervalMs:60000}")
+    public void removeExpired() {
+        long now = System.currentTimeMillis();
+        List<Job> expired = new ArrayList<>();
+        for (Iterator<Job> it = jobs.values().iterator(); it.hasNext(); ) {
+            Job job = it.next();
+            synchronized (job) {
+                if (job.expiresAtMillis <= now) {
+                    it.remove();
+                    expired.add(job);
+                }
+            }
+        }
+        for (Job job : expired) {
+            jobIdsByKey.remove(job.key, job.info.getId());
+            deleteQuietly(job.path);
+            log.debug("Expired export {}", job.info.getId());
+        }
+    }
+
+    // Caller holds the job's monitor
+    private void touch(Job job) {
+        job.expiresAtMillis = System.currentTimeMillis() + exportConfig.getJobTtlMs();
+        job.info.setExpiresAt(Instant.ofEpochMilli(job.expiresAtMillis).toString());
+    }
+
+    // Caller holds the job's monitor
+    private ExportJob snapshot(Job job) {
+        ExportJob info = job.info;
+        return new ExportJob(info.getId(), info.getFileId(), info.getFileName(), info.getFormat(),
+                info.getColumns(), info.getFilter(), info.getStatus(), info.getCreatedAt(), info.getCompletedAt(),
+                info.getExpiresAt(), info.getSizeBytes(), info.getResultUrl(), info.getError());
+    }
+
+    // Jobs are not persisted, so results from a previous run can never be served again
+    private void deleteLeftovers() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> SPOOL_FILE.matcher(path.getFileName().toString()).matches())
+                    .forEach(this::deleteQuietly);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete {}", path, e);
+        }
+    }
+}
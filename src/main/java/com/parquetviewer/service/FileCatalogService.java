@@ -0,0 +1,312 @@
+package com.parquetviewer.service;
+
+import com.parquetviewer.cache.DiskCache;
+import com.parquetviewer.cache.ParquetCache;
+import com.parquetviewer.config.CatalogConfig;
+import com.parquetviewer.config.S3ClientConfig;
+import com.parquetviewer.io.RangeCache;
+import com.parquetviewer.io.S3InputFile;
+import com.parquetviewer.metrics.ParquetMetrics;
+import com.parquetviewer.model.ParquetFile;
+import com.parquetviewer.model.ParquetFilePage;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CommonPrefix;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cached catalog of the Parquet objects under the configured prefix.
+ * IDs are derived from the object key, so they survive re-listing, and
+ * resolving an ID is a hash lookup rather than a fresh LIST call.
+ *
+ * Listing fans out across delimiter-based sub-prefixes on a bounded pool, so
+ * buckets with hundreds of thousands of keys are listed by several LIST
+ * streams at once rather than one 1000-key page at a time.
+ */
+@Service
+@Slf4j
+public class FileCatalogService {
+
+    private static final int ID_LENGTH = 16;
+
+    private final S3ClientConfig s3ClientConfig;
+    private final S3Client s3Client;
+    private final CatalogConfig catalogConfig;
+    private final ParquetCache cache;
+    private final DiskCache diskCache;
+    private final ParquetMetrics metrics;
+
+    private final ExecutorService listingExecutor;
+
+    private final Object loadLock = new Object();
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public FileCatalogService(S3ClientConfig s3ClientConfig, S3Client s3Client, CatalogConfig catalogConfig,
+                              ParquetCache cache, DiskCache diskCache, ParquetMetrics metrics) {
+        this.s3ClientConfig = s3ClientConfig;
+        this.s3Client = s3Client;
+        this.catalogConfig = catalogConfig;
+        this.cache = cache;
+        this.diskCache = diskCache;
+        this.metrics = metrics;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.listingExecutor = Executors.newFixedThreadPool(Math.max(1, catalogConfig.getListingThreads()), r -> {
+            Thread thread = new Thread(r, "catalog-list-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        listingExecutor.shutdownNow();
+    }
+
+    public List<ParquetFile> getFiles() {
+        return current().files;
+    }
+
+    /**
+     * Returns up to {@code limit} files after the cursor, in key order. Cursors encode the
+     * last key returned, so paging stays consistent across background refreshes.
+     */
+    public ParquetFilePage getFiles(String cursor, Integer limit) {
+        Snapshot current = current();
+        int pageSize = limit == null || limit <= 0
+                ? catalogConfig.getDefaultPageSize()
+                : Math.min(limit, catalogConfig.getMaxPageSize());
+
+        int start = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            String afterKey;
+            try {
+                afterKey = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+            }
+            int found = Arrays.binarySearch(current.keys, afterKey);
+            start = found >= 0 ? found + 1 : -found - 1;
+        }
+
+        int end = Math.min(current.files.size(), start + pageSize);
+        List<ParquetFile> page = current.files.subList(start, end);
+        String nextCursor = end < current.files.size()
+                ? Base64.getUrlEncoder().withoutPadding().encodeToString(
+                        current.keys[end - 1].getBytes(StandardCharsets.UTF_8))
+                : null;
+        return new ParquetFilePage(page, nextCursor, current.files.size());
+    }
+
+    public ParquetFile getFile(String fileId) {
+        ParquetFile file = current().byId.get(fileId);
+        if (file == null) {
+            throw new RuntimeException("File not found with ID: " + fileId);
+        }
+        return file;
+    }
+
+    public String getKey(ParquetFile file) {
+        return file.getPath().replace("s3://" + s3ClientConfig.getBucketName() + "/", "");
+    }
+
+    // Read with ranged GETs, through the memory and disk caches of this object version
+    public S3InputFile openInputFile(ParquetFile file) {
+        String bucket = s3ClientConfig.getBucketName();
+        String key = getKey(file);
+        RangeCache ranges = diskCache.tier(bucket, key, file.getEtag(), file.getSize(),
+                cache.rangesFor(bucket, key, file.getEtag()));
+        return new S3InputFile(s3Client, bucket, key, file.getSize(), file.getEtag(),
+                s3ClientConfig.getReadAheadBytes(), ranges);
+    }
+
+    @Scheduled(fixedDelayString = "${parquet.catalog.refreshIntervalMs:60000}")
+    public void refresh() {
+        try {
+            Snapshot loaded = load();
+            synchronized (loadLock) {
+                snapshot = loaded;
+            }
+        } catch (Exception e) {
+            // Keep serving the previous listing; the TTL check forces a reload if this persists
+            log.warn("Background refresh of the Parquet file catalog failed", e);
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null || isExpired(current)) {
+            synchronized (loadLock) {
+                current = snapshot;
+                if (current == null || isExpired(current)) {
+                    current = load();
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private boolean isExpired(Snapshot snapshot) {
+        return System.currentTimeMillis() - snapshot.loadedAt > catalogConfig.getTtlMs();
+    }
+
+    private Snapshot load() {
+        try {
+            Timer.Sample listing = metrics.startTimer();
+            List<S3Object> objects = listShards();
+            metrics.recordListing(listing);
+            objects.sort(Comparator.comparing(S3Object::key));
+
+            List<ParquetFile> files = new ArrayList<>();
+            List<String> keys = new ArrayList<>();
+            Map<String, ParquetFile> byId = new HashMap<>();
+            for (S3Object s3Object : objects) {
+                if (s3Object.key().endsWith(".parquet")) {
+                    ParquetFile file = toParquetFile(s3Object);
+                    files.add(file);
+                    keys.add(s3Object.key());
+                    byId.put(file.getId(), file);
+                }
+            }
+
+            log.debug("Catalog loaded {} Parquet files from s3://{}/{}",
+                    files.size(), s3ClientConfig.getBucketName(), s3ClientConfig.getPrefix());
+            return new Snapshot(Collections.unmodifiableList(files), keys.toArray(new String[0]),
+                    byId, System.currentTimeMillis());
+        } catch (Exception e) {
+            log.error("Failed to list Parquet files from S3", e);
+            throw new RuntimeException("Failed to list Parquet files from S3", e);
+        }
+    }
+
+    /**
+     * Expands the prefix breadth-first by "/" for {@code shardDepth} levels, listing each
+     * level's sub-prefixes concurrently, then lists every remaining sub-prefix recursively
+     * in parallel. The calling thread only waits, so the pool cannot deadlock on itself.
+     */
+    private List<S3Object> listShards() throws InterruptedException, ExecutionException {
+        List<S3Object> objects = new ArrayList<>();
+        List<String> prefixes = Collections.singletonList(s3ClientConfig.getPrefix());
+
+        for (int depth = 0; depth < catalogConfig.getShardDepth() && !prefixes.isEmpty(); depth++) {
+            List<Callable<Shard>> tasks = new ArrayList<>();
+            for (String prefix : prefixes) {
+                tasks.add(() -> listLevel(prefix));
+            }
+            List<String> next = new ArrayList<>();
+            for (Future<Shard> shard : listingExecutor.invokeAll(tasks)) {
+                objects.addAll(shard.get().objects);
+                next.addAll(shard.get().subPrefixes);
+            }
+            prefixes = next;
+        }
+
+        List<Callable<List<S3Object>>> tasks = new ArrayList<>();
+        for (String prefix : prefixes) {
+            tasks.add(() -> listRecursive(prefix));
+        }
+        for (Future<List<S3Object>> shard : listingExecutor.invokeAll(tasks)) {
+            objects.addAll(shard.get());
+        }
+        return objects;
+    }
+
+    private Shard listLevel(String prefix) {
+        ListObjectsV2Request request = ListObjectsV2Request.builder()
+                .bucket(s3ClientConfig.getBucketName())
+                .prefix(prefix)
+                .delimiter("/")
+                .build();
+
+        Shard shard = new Shard();
+        for (ListObjectsV2Response page : s3Client.listObjectsV2Paginator(request)) {
+            shard.objects.addAll(page.contents());
+            for (CommonPrefix commonPrefix : page.commonPrefixes()) {
+                shard.subPrefixes.add(commonPrefix.prefix());
+            }
+        }
+        return shard;
+    }
+
+    private List<S3Object> listRecursive(String prefix) {
+        ListObjectsV2Request request = ListObjectsV2Request.builder()
+                .bucket(s3ClientConfig.getBucketName())
+                .prefix(prefix)
+                .build();
+
+        // The paginator follows continuation tokens past the 1000-key page limit
+        List<S3Object> objects = new ArrayList<>();
+        for (S3Object s3Object : s3Client.listObjectsV2Paginator(request).contents()) {
+            objects.add(s3Object);
+        }
+        return objects;
+    }
+
+    private ParquetFile toParquetFile(S3Object s3Object) {
+        ParquetFile file = new ParquetFile();
+        file.setId(idFor(s3Object.key()));
+        file.setName(s3Object.key().substring(s3Object.key().lastIndexOf('/') + 1));
+        file.setPath("s3://" + s3ClientConfig.getBucketName() + "/" + s3Object.key());
+        file.setSize(s3Object.size());
+        file.setLastModified(s3Object.lastModified().toString());
+        file.setEtag(s3Object.eTag());
+
+        // We'll get better metadata in the detailed view
+        file.setColumnCount(0);
+        file.setRowCount(0);
+        return file;
+    }
+
+    // First 64 bits of the key's SHA-256, hex encoded: stable, URL-safe and opaque
+    static String idFor(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder id = new StringBuilder(ID_LENGTH);
+            for (int i = 0; i < ID_LENGTH / 2; i++) {
+                id.append(Character.forDigit((digest[i] >> 4) & 0xF, 16));
+                id.append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            return id.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static class Snapshot {
+        final List<ParquetFile> files;
+        final String[] keys;  // Sorted, parallel to files
+        final Map<String, ParquetFile> byId;
+        final long loadedAt;
+
+        Snapshot(List<ParquetFile> files, String[] keys, Map<String, ParquetFile> byId, long loadedAt) {
+            this.files = files;
+            this.keys = keys;
+            this.byId = byId;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private static class Shard {
+        final List<S3Object> objects = new ArrayList<>();
+        final List<String> subPrefixes = new ArrayList<>();
+    }
+}
@@ -0,0 +1,84 @@
+package com.parquetviewer.service;
+
+import com.parquetviewer.cache.ParquetCache;
+import com.parquetviewer.config.S3ClientConfig;
+import com.parquetviewer.io.S3InputFile;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.io.SeekableInputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads only the footer of a Parquet object: the trailing 8 bytes (footer length + magic),
+ * then the footer itself. Both go through the file's stream, so they usually arrive in one
+ * ranged GET with the tail block, are served by the range and disk caches when the object
+ * is hot, and count towards the request's S3 traffic. Parsed footers are kept in the
+ * {@link ParquetCache} under the object's ETag.
+ */
+@Component
+@Slf4j
+public class ParquetFooterReader {
+
+    private static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+    private static final int FOOTER_TAIL_LENGTH = 4 + MAGIC.length;
+
+    private final S3ClientConfig s3ClientConfig;
+    private final ParquetCache cache;
+
+    @Autowired
+    public ParquetFooterReader(S3ClientConfig s3ClientConfig, ParquetCache cache) {
+        this.s3ClientConfig = s3ClientConfig;
+        this.cache = cache;
+    }
+
+    public ParquetMetadata readFooter(S3InputFile file) throws IOException {
+        String bucket = s3ClientConfig.getBucketName();
+        String s3Key = file.getKey();
+        String etag = file.getEtag();
+        ParquetMetadata cached = cache.getFooter(bucket, s3Key, etag);
+        if (cached != null) {
+            return cached;
+        }
+
+        long fileLength = file.getLength();
+        if (fileLength < MAGIC.length + FOOTER_TAIL_LENGTH) {
+            throw new IOException("Not a Parquet file (too small): " + s3Key);
+        }
+
+        byte[] footer;
+        int footerLength;
+        try (SeekableInputStream in = file.newStream()) {
+            byte[] tail = new byte[FOOTER_TAIL_LENGTH];
+            in.seek(fileLength - FOOTER_TAIL_LENGTH);
+            in.readFully(tail);
+            if (!Arrays.equals(MAGIC, Arrays.copyOfRange(tail, 4, FOOTER_TAIL_LENGTH))) {
+                throw new IOException("Not a Parquet file (missing trailing magic): " + s3Key);
+            }
+
+            footerLength = ByteBuffer.wrap(tail, 0, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+            long footerStart = fileLength - FOOTER_TAIL_LENGTH - footerLength;
+            if (footerLength <= 0 || footerStart < MAGIC.length) {
+                throw new IOException("Corrupt Parquet footer length " + footerLength + " in " + s3Key);
+            }
+
+            footer = new byte[footerLength];
+            in.seek(footerStart);
+            in.readFully(footer);
+        }
+        log.debug("Read {} byte footer of {} ({} bytes)", footerLength, s3Key, fileLength);
+
+        ParquetMetadata metadata = new ParquetMetadataConverter().readParquetMetadata(
+                new ByteArrayInputStream(footer), ParquetMetadataConverter.NO_FILTER);
+        cache.putFooter(bucket, s3Key, etag, metadata, footerLength);
+        return metadata;
+    }
+}
@@ -1,15 +1,37 @@
 package com.parquetviewer.service;
 
-import com.parquetviewer.model.ParquetFile;
+import com.parquetviewer.model.AggregateRequest;
+import com.parquetviewer.model.AggregateResult;
+import com.parquetviewer.model.CacheStatistics;
+import com.parquetviewer.model.ColumnarData;
+import com.parquetviewer.model.ParquetDataset;
+import com.parquetviewer.model.ParquetFilePage;
 import com.parquetviewer.model.ParquetMetadata;
 import com.parquetviewer.model.ParquetData;
 
+import java.io.OutputStream;
 import java.util.List;
 import javax.servlet.http.HttpServletResponse;
 
 public interface ParquetService {
-    List<ParquetFile> getAllParquetFiles();
+    ParquetFilePage getParquetFiles(String cursor, Integer limit);
     ParquetMetadata getParquetMetadata(String fileId);
-    ParquetData getParquetData(String fileId, int page, int pageSize);
-    void downloadParquetFile(String fileId, String format, HttpServletResponse response);
+    ParquetData getParquetData(String fileId, int page, int pageSize, List<String> columns, String filter,
+                               String sort);
+    ColumnarData getColumnarData(String fileId, int page, int pageSize, List<String> columns, String filter,
+                                 String sort);
+    void streamParquetData(String fileId, int page, int pageSize, List<String> columns, String filter, String sort,
+                           OutputStream outputStream);
+    void streamArrowData(String fileId, int page, int pageSize, List<String> columns, String filter, String sort,
+                         OutputStream outputStream);
+    AggregateResult aggregate(String fileId, AggregateRequest request);
+    List<ParquetDataset> getDatasets();
+    ParquetMetadata getDatasetMetadata(String datasetId);
+    ParquetData getDatasetData(String datasetId, int page, int pageSize, List<String> columns, String filter);
+    CacheStatistics getCacheStatistics();
+    void downloadParquetFile(String fileId, String format, List<String> columns, String filter,
+                             String acceptEncoding, HttpServletResponse response);
+    void writeExport(String fileId, ExportFormat format, List<String> columns, String filter,
+                     OutputStream outputStream);
+    void validateExport(String fileId, List<String> columns, String filter);
 }
\ No newline at end of file
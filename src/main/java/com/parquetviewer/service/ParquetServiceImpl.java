@@ -1,322 +1,1440 @@
 package com.parquetviewer.service;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.luben.zstd.ZstdOutputStream;
+import com.parquetviewer.aggregate.AggregateFunction;
+import com.parquetviewer.aggregate.HashAggregator;
+import com.parquetviewer.cache.ParquetCache;
 import com.parquetviewer.model.*;
-import com.parquetviewer.config.S3ClientConfig;
+import com.parquetviewer.config.AggregateConfig;
+import com.parquetviewer.config.ExportConfig;
+import com.parquetviewer.io.S3InputFile;
+import com.parquetviewer.metrics.ParquetMetrics;
+import com.parquetviewer.metrics.RequestMetrics;
+import com.parquetviewer.query.FilterExpression;
+import com.parquetviewer.query.SortOrder;
+import com.parquetviewer.reader.BatchConsumer;
+import com.parquetviewer.reader.ColumnVector;
+import com.parquetviewer.reader.RowBatch;
+import com.parquetviewer.reader.VectorizedParquetReader;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.ParquetReadOptions;
 import org.apache.parquet.avro.AvroParquetReader;
+import org.apache.parquet.avro.AvroReadSupport;
+import org.apache.parquet.avro.AvroSchemaConverter;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.convert.GroupRecordConverter;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.hadoop.ParquetFileReader;
 import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.io.ColumnIOFactory;
 import org.apache.parquet.io.InputFile;
-import org.apache.parquet.io.SeekableInputStream;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.parquet.io.MessageColumnIO;
+import org.apache.parquet.io.RecordReader;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.Type;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.auth.credentials.AwsSessionCredentials;
-import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
-import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
-import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
-import software.amazon.awssdk.services.s3.model.S3Object;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
 
 @Service
 @Slf4j
 public class ParquetServiceImpl implements ParquetService {
 
-    private final S3ClientConfig s3ClientConfig;
-    private final S3Client s3Client;
+    private static final int STREAM_FLUSH_INTERVAL = 256;
+    // Datasets and files are admitted separately even if their ids collide
+    private static final String DATASET_KEY_PREFIX = "dataset:";
+
+    private final ParquetFooterReader footerReader;
+    private final ParquetCache cache;
+    private final FileCatalogService catalog;
+    private final ObjectMapper objectMapper;
+    private final ScanScheduler scanScheduler;
+    private final ExportConfig exportConfig;
+    private final SortEngine sortEngine;
+    private final ProfileService profileService;
+    private final AggregateConfig aggregateConfig;
+    private final DatasetService datasetService;
+    private final ParquetMetrics parquetMetrics;
+    private final RequestCoalescer coalescer;
+    private final RequestLimiter limiter;
 
     @Autowired
-    public ParquetServiceImpl(S3ClientConfig s3ClientConfig) {
-        this.s3ClientConfig = s3ClientConfig;
-        this.s3Client = S3Client.builder()
-                .region(Region.of(s3ClientConfig.getRegion()))
-                .credentialsProvider(StaticCredentialsProvider.create(
-                        AwsSessionCredentials.create(
-                                s3ClientConfig.getAccessKey(),
-                                s3ClientConfig.getSecretKey(),
-                                s3ClientConfig.getSessionToken())))
-                .build();
-        log.info("S3 Client initialized");
+    public ParquetServiceImpl(ParquetFooterReader footerReader, ParquetCache cache, FileCatalogService catalog,
+                              ObjectMapper objectMapper, ScanScheduler scanScheduler, ExportConfig exportConfig,
+                              SortEngine sortEngine, ProfileService profileService, AggregateConfig aggregateConfig,
+                              DatasetService datasetService, ParquetMetrics parquetMetrics,
+                              RequestCoalescer coalescer, RequestLimiter limiter) {
+        this.footerReader = footerReader;
+        this.cache = cache;
+        this.catalog = catalog;
+        this.objectMapper = objectMapper;
+        this.scanScheduler = scanScheduler;
+        this.exportConfig = exportConfig;
+        this.sortEngine = sortEngine;
+        this.profileService = profileService;
+        this.aggregateConfig = aggregateConfig;
+        this.datasetService = datasetService;
+        this.parquetMetrics = parquetMetrics;
+        this.coalescer = coalescer;
+        this.limiter = limiter;
+        // SXSSF spills Excel rows to POI's temporary directory
+        parquetMetrics.monitorDirectory("download", Paths.get(System.getProperty("java.io.tmpdir"), "poifiles"));
     }
 
     @Override
-    public List<ParquetFile> getAllParquetFiles() {
-        try {
-            ListObjectsV2Request listRequest = ListObjectsV2Request.builder()
-                    .bucket(s3ClientConfig.getBucketName())
-                    .prefix(s3ClientConfig.getPrefix())
-                    .build();
-
-            ListObjectsV2Response response = s3Client.listObjectsV2(listRequest);
+    public ParquetFilePage getParquetFiles(String cursor, Integer limit) {
+        return catalog.getFiles(cursor, limit);
+    }
 
-            List<ParquetFile> parquetFiles = new ArrayList<>();
-            int idCounter = 1;
+    @Override
+    public CacheStatistics getCacheStatistics() {
+        return cache.getStatistics();
+    }
 
-            for (S3Object s3Object : response.contents()) {
-                if (s3Object.key().endsWith(".parquet")) {
-                    ParquetFile file = new ParquetFile();
-                    file.setId(String.valueOf(idCounter++));
-                    file.setName(s3Object.key().substring(s3Object.key().lastIndexOf('/') + 1));
-                    file.setPath("s3://" + s3ClientConfig.getBucketName() + "/" + s3Object.key());
-                    file.setSize(s3Object.size());
-                    file.setLastModified(s3Object.lastModified().toString());
+    @Override
+    public ParquetMetadata getParquetMetadata(String fileId) {
+        return sharedRead("metadata", fileId, () -> readMetadata(fileId));
+    }
 
-                    // We'll get better metadata in the detailed view
-                    file.setColumnCount(0);
-                    file.setRowCount(0);
+    private ParquetMetadata readMetadata(String fileId) {
+        ParquetFile file = catalog.getFile(fileId);
+        try (RequestMetrics metrics = parquetMetrics.request("metadata", file.getSize())) {
+            // Only the footer is fetched; row data is never touched
+            org.apache.parquet.hadoop.metadata.ParquetMetadata footer =
+                    readFooter(metrics, metrics.track(catalog.openInputFile(file)));
+            List<BlockMetaData> blocks = footer.getBlocks();
 
-                    parquetFiles.add(file);
+            ParquetMetadata metadata = new ParquetMetadata();
+            metadata.setId(fileId);
+            metadata.setName(file.getName());
+            metadata.setPath(file.getPath());
+            metadata.setSize(file.getSize());
+            metadata.setLastModified(file.getLastModified());
+            metadata.setCreatedAt(file.getLastModified()); // S3 does not expose a creation time
+            metadata.setFormat("PARQUET");
+            metadata.setSchema(buildColumns(footer.getFileMetaData().getSchema(), blocks));
+            applyBlockStatistics(metadata, blocks, file.getSize(), footer.getFileMetaData().getCreatedBy());
+
+            // Exact and estimated column statistics come from the stored profile, never a scan here
+            FileProfile profile = profileService.lookup(file);
+            if (profile != null) {
+                metadata.setProfileStatus(profile.getStatus().name());
+                if (profile.getStatus() == FileProfile.Status.COMPLETED) {
+                    applyProfile(metadata.getSchema(), profile);
                 }
             }
 
-            return parquetFiles;
+            return metadata;
         } catch (Exception e) {
-            log.error("Failed to list Parquet files from S3", e);
-            throw new RuntimeException("Failed to list Parquet files from S3", e);
+            log.error("Failed to read Parquet metadata", e);
+            throw new RuntimeException("Failed to read Parquet metadata", e);
         }
     }
 
-    @Override
-    public ParquetMetadata getParquetMetadata(String fileId) {
-        try {
-            // Find the file path from the fileId
-            List<ParquetFile> files = getAllParquetFiles();
-            if (files.isEmpty()) {
-                throw new RuntimeException("No Parquet files found");
+    // Row count, codecs and per-row-group sizes, summed from the footer without touching row data
+    private void applyBlockStatistics(ParquetMetadata metadata, List<BlockMetaData> blocks, long totalSize,
+                                      String createdBy) {
+        Set<String> codecs = new LinkedHashSet<>();
+        long rowCount = 0;
+        long compressedSize = 0;
+        long uncompressedSize = 0;
+        List<ParquetStatistics.RowGroup> rowGroups = new ArrayList<>();
+        for (int i = 0; i < blocks.size(); i++) {
+            BlockMetaData block = blocks.get(i);
+            long blockCompressed = 0;
+            for (ColumnChunkMetaData chunk : block.getColumns()) {
+                codecs.add(chunk.getCodec().name());
+                blockCompressed += chunk.getTotalSize();
+            }
+            rowGroups.add(new ParquetStatistics.RowGroup(
+                    i, block.getRowCount(), block.getStartingPos(), blockCompressed, block.getTotalByteSize()));
+            rowCount += block.getRowCount();
+            compressedSize += blockCompressed;
+            uncompressedSize += block.getTotalByteSize();
+        }
+        metadata.setCompression(codecs.isEmpty() ? "UNCOMPRESSED" : String.join(",", codecs));
+        metadata.setRowCount(rowCount);
+
+        ParquetStatistics stats = new ParquetStatistics();
+        stats.setTotalSize(totalSize);
+        stats.setRowGroups(blocks.size());
+        stats.setAverageRowGroupSize(blocks.isEmpty() ? 0 : (double) compressedSize / blocks.size());
+        stats.setCompressedSize(compressedSize);
+        stats.setUncompressedSize(uncompressedSize);
+        stats.setCreatedBy(createdBy);
+        stats.setRowGroupDetails(rowGroups);
+        metadata.setStatistics(stats);
+    }
+
+    /**
+     * Builds the top-level column list from the footer schema, aggregating
+     * chunk statistics for each column across all row groups.
+     */
+    private List<ParquetColumn> buildColumns(MessageType schema, List<BlockMetaData> blocks) {
+        List<ParquetColumn> columns = new ArrayList<>();
+        for (Type field : schema.getFields()) {
+            ParquetColumn column = new ParquetColumn();
+            column.setName(field.getName());
+            column.setType(mapParquetType(field));
+            column.setNullable(field.getRepetition() == Type.Repetition.OPTIONAL);
+            column.setStatistics(buildColumnStatistics(field, blocks));
+            columns.add(column);
+        }
+        return columns;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private ParquetColumn.ColumnStatistics buildColumnStatistics(Type field, List<BlockMetaData> blocks) {
+        Set<String> codecs = new LinkedHashSet<>();
+        Set<String> encodings = new TreeSet<>();
+        Statistics merged = field.isPrimitive() ? Statistics.createStats(field) : null;
+        boolean nullCountKnown = true;
+        long nullCount = 0;
+        long compressedSize = 0;
+        long uncompressedSize = 0;
+
+        for (BlockMetaData block : blocks) {
+            for (ColumnChunkMetaData chunk : block.getColumns()) {
+                // Nested fields own every leaf chunk under their top-level name
+                if (!field.getName().equals(chunk.getPath().toArray()[0])) {
+                    continue;
+                }
+                codecs.add(chunk.getCodec().name());
+                for (Encoding encoding : chunk.getEncodings()) {
+                    encodings.add(encoding.name());
+                }
+                compressedSize += chunk.getTotalSize();
+                uncompressedSize += chunk.getTotalUncompressedSize();
+
+                Statistics chunkStats = chunk.getStatistics();
+                if (chunkStats == null || chunkStats.isEmpty() || !chunkStats.isNumNullsSet()) {
+                    nullCountKnown = false;
+                    continue;
+                }
+                nullCount += chunkStats.getNumNulls();
+                if (merged != null) {
+                    merged.mergeStatistics(chunkStats);
+                }
             }
+        }
 
-            ParquetFile file = files.stream()
-                    .filter(f -> f.getId().equals(fileId))
-                    .findFirst()
-                    .orElseThrow(() -> new RuntimeException("File not found with ID: " + fileId));
+        ParquetColumn.ColumnStatistics stats = new ParquetColumn.ColumnStatistics();
+        stats.setNullCount(nullCountKnown ? nullCount : null);
+        if (merged != null && merged.hasNonNullValue()) {
+            stats.setMin(merged.minAsString());
+            stats.setMax(merged.maxAsString());
+        }
+        stats.setCodec(String.join(",", codecs));
+        stats.setEncodings(new ArrayList<>(encodings));
+        stats.setCompressedSize(compressedSize);
+        stats.setUncompressedSize(uncompressedSize);
+        return stats;
+    }
 
-            // Download the Parquet file to a temporary location
-            String s3Key = file.getPath().replace("s3://" + s3ClientConfig.getBucketName() + "/", "");
-            File tempFile = downloadParquetFile(s3Key);
+    private void applyProfile(List<ParquetColumn> columns, FileProfile profile) {
+        Map<String, ColumnProfile> byName = new HashMap<>();
+        for (ColumnProfile columnProfile : profile.getColumns()) {
+            byName.put(columnProfile.getName(), columnProfile);
+        }
+        for (ParquetColumn column : columns) {
+            ColumnProfile columnProfile = byName.get(column.getName());
+            if (columnProfile == null) {
+                continue;
+            }
+            ParquetColumn.ColumnStatistics stats = column.getStatistics();
+            stats.setNullCount(columnProfile.getNullCount());
+            stats.setDistinctCount(columnProfile.getDistinctCount());
+            // Decoded values read better than the footer's, which may be truncated or raw bytes
+            if (columnProfile.getMin() != null) {
+                stats.setMin(columnProfile.getMin());
+                stats.setMax(columnProfile.getMax());
+            }
+            stats.setTopValues(columnProfile.getTopValues());
+            stats.setHistogram(columnProfile.getHistogram());
+        }
+    }
 
-            // Read Parquet metadata using Avro
-            ParquetMetadata metadata = new ParquetMetadata();
+    private String mapParquetType(Type field) {
+        if (field.isPrimitive()) {
+            return field.asPrimitiveType().getPrimitiveTypeName().name();
+        }
+        LogicalTypeAnnotation annotation = field.getLogicalTypeAnnotation();
+        if (annotation instanceof LogicalTypeAnnotation.ListLogicalTypeAnnotation) {
+            return "ARRAY";
+        } else if (annotation instanceof LogicalTypeAnnotation.MapLogicalTypeAnnotation) {
+            return "MAP";
+        }
+        return "RECORD";
+    }
 
-            try (ParquetReader<GenericRecord> reader = AvroParquetReader
-                    .<GenericRecord>builder(new LocalInputFile(tempFile))
-                    .build()) {
-
-                GenericRecord record = reader.read();
-                if (record != null) {
-                    Schema schema = record.getSchema();
-
-                    metadata.setId(fileId);
-                    metadata.setName(file.getName());
-                    metadata.setPath(file.getPath());
-                    metadata.setSize(file.getSize());
-                    metadata.setLastModified(file.getLastModified());
-                    metadata.setCreatedAt(file.getLastModified()); // Using last modified as a placeholder
-                    metadata.setFormat("PARQUET");
-                    metadata.setCompression("SNAPPY"); // Default compression
-
-                    // Parse schema
-                    List<ParquetColumn> columns = new ArrayList<>();
-                    for (Schema.Field field : schema.getFields()) {
-                        ParquetColumn column = new ParquetColumn();
-                        column.setName(field.name());
-                        column.setType(mapAvroTypeToParquetType(field.schema()));
-                        column.setNullable(isNullable(field.schema()));
-
-                        // Set statistics
-                        ParquetColumn.ColumnStatistics stats = new ParquetColumn.ColumnStatistics();
-                        stats.setNullCount(0); // Would need column-level stats to get actual values
-                        stats.setDistinctCount(0); // Would need to compute from data
-                        column.setStatistics(stats);
-
-                        columns.add(column);
-                    }
-                    metadata.setSchema(columns);
+    @Override
+    public ParquetData getParquetData(String fileId, int page, int pageSize, List<String> columns, String filter,
+                                      String sort) {
+        return sharedRead("data", fileId, () -> readData(fileId, page, pageSize, columns, filter, sort),
+                page, pageSize, columns, filter, sort);
+    }
 
-                    // Count rows
-                    long rowCount = countRows(tempFile);
-                    metadata.setRowCount((int) rowCount);
+    private ParquetData readData(String fileId, int page, int pageSize, List<String> columns, String filter,
+                                 String sort) {
+        ParquetData data = new ParquetData();
+        List<Map<String, Object>> rows = new ArrayList<>();
+        data.setRows(rows);
+        data.setCurrentPage(page);
+        data.setPageSize(pageSize);
+
+        readPage("data", fileId, page, pageSize, columns, filter, sort, new PageHandler() {
+            @Override
+            public void begin(MessageType projection, List<ParquetColumn> columns, long totalRows) {
+                data.setColumns(columns);
+                data.setTotalRows(totalRows);
+            }
 
-                    // Statistics
-                    ParquetStatistics stats = new ParquetStatistics();
-                    stats.setTotalSize(file.getSize());
-                    stats.setRowGroups(1); // Simplified, could get more detailed info
-                    stats.setAverageRowGroupSize(file.getSize()); // Simplified
-                    metadata.setStatistics(stats);
+            @Override
+            public void batch(RowBatch batch) {
+                for (int row = 0; row < batch.size(); row++) {
+                    rows.add(toRow(batch, row));
                 }
             }
+        });
+        return data;
+    }
+
+    @Override
+    public ColumnarData getColumnarData(String fileId, int page, int pageSize, List<String> columns, String filter,
+                                        String sort) {
+        return sharedRead("data_columnar", fileId, () -> readColumnarData(fileId, page, pageSize, columns, filter,
+                sort), page, pageSize, columns, filter, sort);
+    }
+
+    private ColumnarData readColumnarData(String fileId, int page, int pageSize, List<String> columns, String filter,
+                                          String sort) {
+        ColumnarData[] result = new ColumnarData[1];
+        readPage("data_columnar", fileId, page, pageSize, columns, filter, sort, new PageHandler() {
+            private ColumnarPageBuilder builder;
+            private long totalRows;
+
+            @Override
+            public void begin(MessageType projection, List<ParquetColumn> columns, long totalRows) {
+                this.builder = new ColumnarPageBuilder(projection, columns, pageSize);
+                this.totalRows = totalRows;
+            }
 
-            // Clean up the temporary file
-            tempFile.delete();
+            @Override
+            public void batch(RowBatch batch) {
+                builder.append(batch);
+            }
 
-            return metadata;
-        } catch (Exception e) {
-            log.error("Failed to read Parquet metadata", e);
-            throw new RuntimeException("Failed to read Parquet metadata", e);
+            @Override
+            public void end() {
+                result[0] = builder.build(totalRows, page, pageSize);
+            }
+        });
+        return result[0];
+    }
+
+    @Override
+    public void streamParquetData(String fileId, int page, int pageSize, List<String> columns, String filter,
+                                  String sort, OutputStream outputStream) {
+        try (RequestLimiter.Permit permit = limiter.acquireStream("data_ndjson", fileId);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8)) {
+            generator.setRootValueSeparator(null);
+
+            readPage("data_ndjson", fileId, page, pageSize, columns, filter, sort, new PageHandler() {
+                private int written;
+
+                @Override
+                public String format() {
+                    return "json";
+                }
+
+                @Override
+                public void begin(MessageType projection, List<ParquetColumn> columns, long totalRows)
+                        throws IOException {
+                    // First line describes the page; every following line is one row
+                    generator.writeStartObject();
+                    generator.writeObjectField("columns", columns);
+                    generator.writeNumberField("totalRows", totalRows);
+                    generator.writeNumberField("currentPage", page);
+                    generator.writeNumberField("pageSize", pageSize);
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                    generator.flush();
+                }
+
+                @Override
+                public void batch(RowBatch batch) throws IOException {
+                    for (int row = 0; row < batch.size(); row++) {
+                        generator.writeStartObject();
+                        for (int c = 0; c < batch.getColumnCount(); c++) {
+                            ColumnVector column = batch.column(c);
+                            generator.writeFieldName(column.getName());
+                            writeJsonValue(generator, column, row);
+                        }
+                        generator.writeEndObject();
+                        generator.writeRaw('\n');
+                        // Flush the first row at once for time-to-first-byte, then in batches
+                        if (++written % STREAM_FLUSH_INTERVAL == 1) {
+                            generator.flush();
+                        }
+                    }
+                }
+            });
+        } catch (IOException e) {
+            log.error("Failed to stream Parquet data", e);
+            throw new RuntimeException("Failed to stream Parquet data", e);
         }
     }
 
-    private String mapAvroTypeToParquetType(Schema schema) {
-        switch (schema.getType()) {
-            case STRING:
-                return "BINARY";
+    // Writes primitives directly so the generator never sees a boxed value
+    private void writeJsonValue(JsonGenerator generator, ColumnVector column, int row) throws IOException {
+        if (column.isNull(row)) {
+            generator.writeNull();
+            return;
+        }
+        switch (column.getKind()) {
             case INT:
-                return "INT32";
+                generator.writeNumber(column.getInt(row));
+                break;
             case LONG:
-                return "INT64";
+                generator.writeNumber(column.getLong(row));
+                break;
             case FLOAT:
-                return "FLOAT";
+                generator.writeNumber(column.getFloat(row));
+                break;
             case DOUBLE:
-                return "DOUBLE";
+                generator.writeNumber(column.getDouble(row));
+                break;
             case BOOLEAN:
-                return "BOOLEAN";
-            case BYTES:
-                return "BINARY";
+                generator.writeBoolean(column.getBoolean(row));
+                break;
+            case STRING:
+                generator.writeString((String) column.getObject(row));
+                break;
             default:
-                return schema.getType().toString();
+                generator.writeObject(column.getObject(row));
+        }
+    }
+
+    @Override
+    public void streamArrowData(String fileId, int page, int pageSize, List<String> columns, String filter,
+                                String sort, OutputStream outputStream) {
+        ArrowBatchWriter[] writer = new ArrowBatchWriter[1];
+        try (RequestLimiter.Permit permit = limiter.acquireStream("data_arrow", fileId)) {
+            readPage("data_arrow", fileId, page, pageSize, columns, filter, sort, new PageHandler() {
+                @Override
+                public String format() {
+                    return "arrow";
+                }
+
+                @Override
+                public void begin(MessageType projection, List<ParquetColumn> columns, long totalRows)
+                        throws IOException {
+                    writer[0] = new ArrowBatchWriter(projection, outputStream);
+                }
+
+                @Override
+                public void batch(RowBatch batch) throws IOException {
+                    writer[0].write(batch);
+                }
+
+                @Override
+                public void end() throws IOException {
+                    writer[0].finish();
+                }
+            });
+        } finally {
+            // Also when the read fails part way, so the writer's off-heap buffers are always released
+            if (writer[0] != null) {
+                writer[0].close();
+            }
+        }
+    }
+
+    // Receives a page batch by batch as it is decoded, so callers choose whether to buffer or stream it
+    private interface PageHandler {
+        void begin(MessageType projection, List<ParquetColumn> columns, long totalRows) throws IOException;
+
+        void batch(RowBatch batch) throws IOException;
+
+        default void end() throws IOException {
+        }
+
+        // Output format the handler encodes to, or null when it only converts values for a response object
+        default String format() {
+            return null;
+        }
+    }
+
+    // Hands a batch to the handler, timed as encoding or value conversion depending on the handler
+    private void deliver(PageHandler handler, RowBatch batch, RequestMetrics metrics) throws IOException {
+        long start = System.nanoTime();
+        handler.batch(batch);
+        if (handler.format() != null) {
+            metrics.recordEncode(handler.format(), System.nanoTime() - start);
+        } else {
+            metrics.record(RequestMetrics.CONVERT, System.nanoTime() - start);
         }
     }
 
-    private boolean isNullable(Schema schema) {
-        return schema.getType() == Schema.Type.UNION &&
-                schema.getTypes().stream().anyMatch(s -> s.getType() == Schema.Type.NULL);
+    private void readPage(String endpoint, String fileId, int page, int pageSize, List<String> columns, String filter,
+                          String sort, PageHandler handler) {
+        ParquetFile file = catalog.getFile(fileId);
+        try (RequestMetrics metrics = parquetMetrics.request(endpoint, file.getSize())) {
+            S3InputFile inputFile = metrics.track(catalog.openInputFile(file));
+            org.apache.parquet.hadoop.metadata.ParquetMetadata footer = readFooter(metrics, inputFile);
+            List<BlockMetaData> blocks = footer.getBlocks();
+            MessageType fileSchema = footer.getFileMetaData().getSchema();
+            MessageType projection = projectSchema(fileSchema, columns);
+            FilterExpression filterExpression = compileFilter(filter, fileSchema);
+            SortOrder sortOrder = SortOrder.parse(sort, fileSchema);
+
+            // Rows per row group: straight from the footer, or the matching count when filtering
+            long[] rowCounts = filterExpression == null
+                    ? footerRowCounts(blocks)
+                    : countMatchingRows(inputFile, blocks, filterExpression, metrics);
+            long totalRows = 0;
+            for (long count : rowCounts) {
+                totalRows += count;
+            }
+            long startIndex = (long) page * pageSize;
+            // Checked before anything is written, so a streamed page can still answer 400
+            if (sortOrder != null && filterExpression != null && startIndex < totalRows && pageSize > 0) {
+                sortEngine.checkTopKDepth(startIndex + Math.min(pageSize, totalRows - startIndex));
+            }
+            handler.begin(projection, buildColumns(projection, blocks), totalRows);
+
+            if (startIndex >= totalRows || pageSize <= 0) {
+                handler.end();
+                return;
+            }
+
+            if (sortOrder != null) {
+                int count = (int) Math.min(pageSize, totalRows - startIndex);
+                deliver(handler, readSortedPage(file, new ScanTarget(inputFile, blocks, fileSchema, projection,
+                        filterExpression, metrics), sortOrder, startIndex, count), metrics);
+                handler.end();
+                log.debug("Sorted page {} of {} by {}; fetched {} bytes in {} requests",
+                        page, inputFile, sort, inputFile.getBytesFetched(), inputFile.getRequestCount());
+                return;
+            }
+
+            if (filterExpression == null && VectorizedParquetReader.supports(projection)) {
+                // Whole row groups before the page are skipped without being fetched
+                try (VectorizedParquetReader reader = new VectorizedParquetReader(
+                        inputFile, projection, Math.min(pageSize, VectorizedParquetReader.DEFAULT_BATCH_SIZE))) {
+                    long decodeStart = System.nanoTime();
+                    reader.skipRows(startIndex);
+                    int remaining = pageSize;
+                    long decodeNanos = 0;
+                    RowBatch batch;
+                    while (remaining > 0 && (batch = reader.nextBatch(remaining)) != null) {
+                        decodeNanos += System.nanoTime() - decodeStart;
+                        deliver(handler, batch, metrics);
+                        remaining -= batch.size();
+                        decodeStart = System.nanoTime();
+                    }
+                    metrics.record(RequestMetrics.DECODE, decodeNanos + System.nanoTime() - decodeStart);
+                }
+                handler.end();
+                log.debug("Page {} of {} decoded column-wise; fetched {} bytes in {} requests",
+                        page, inputFile, inputFile.getBytesFetched(), inputFile.getRequestCount());
+                return;
+            }
+
+            // Jump to the row group containing the first requested row
+            int blockIndex = 0;
+            long rowsBefore = 0;
+            while (rowsBefore + rowCounts[blockIndex] <= startIndex) {
+                rowsBefore += rowCounts[blockIndex];
+                blockIndex++;
+            }
+
+            // Row groups are selected by midpoint, so starting the range at this
+            // group's first byte excludes every earlier group without reading it
+            ParquetReader.Builder<GenericRecord> builder = AvroParquetReader
+                    .<GenericRecord>builder(inputFile)
+                    .withConf(projectionConf(withFilterColumns(projection, fileSchema, filterExpression)))
+                    .withFileRange(blocks.get(blockIndex).getStartingPos(), inputFile.getLength());
+            if (filterExpression != null) {
+                builder.withFilter(FilterCompat.get(filterExpression.getPredicate()));
+            }
+
+            try (ParquetReader<GenericRecord> reader = builder.build()) {
+                long toSkip = startIndex - rowsBefore;
+                while (toSkip > 0 && reader.read() != null) {
+                    toSkip--;
+                }
+                readRecords(reader, projection, pageSize, metrics, batch -> deliver(handler, batch, metrics));
+            }
+            handler.end();
+            log.debug("Page {} of {} started in row group {}; fetched {} bytes in {} requests",
+                    page, inputFile, blockIndex, inputFile.getBytesFetched(), inputFile.getRequestCount());
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to read Parquet data", e);
+            throw new RuntimeException("Failed to read Parquet data", e);
+        }
+    }
+
+    @Override
+    public AggregateResult aggregate(String fileId, AggregateRequest request) {
+        return sharedRead("aggregate", fileId, () -> readAggregate(fileId, request), request);
+    }
+
+    private AggregateResult readAggregate(String fileId, AggregateRequest request) {
+        ParquetFile file = catalog.getFile(fileId);
+        try (RequestMetrics metrics = parquetMetrics.request("aggregate", file.getSize())) {
+            S3InputFile inputFile = metrics.track(catalog.openInputFile(file));
+            org.apache.parquet.hadoop.metadata.ParquetMetadata footer = readFooter(metrics, inputFile);
+            List<BlockMetaData> blocks = footer.getBlocks();
+            MessageType fileSchema = footer.getFileMetaData().getSchema();
+            FilterExpression filter = compileFilter(request.getFilter(), fileSchema);
+
+            List<String> groupBy = request.getGroupBy() == null ? Collections.emptyList() : request.getGroupBy();
+            List<AggregateRequest.Aggregate> aggregates = request.getAggregates() == null
+                    || request.getAggregates().isEmpty()
+                    ? Collections.singletonList(new AggregateRequest.Aggregate("count", null, null))
+                    : request.getAggregates();
+            List<String> resultColumns = new ArrayList<>(groupBy);
+            AggregateFunction[] functions = new AggregateFunction[aggregates.size()];
+            String[] aggregateColumns = new String[aggregates.size()];
+            for (int a = 0; a < aggregates.size(); a++) {
+                AggregateRequest.Aggregate aggregate = aggregates.get(a);
+                AggregateFunction function = AggregateFunction.of(aggregate.getFunction());
+                String column = aggregate.getColumn() == null || aggregate.getColumn().trim().equals("*")
+                        ? null : aggregate.getColumn().trim();
+                if (column == null && function != AggregateFunction.COUNT) {
+                    throw new IllegalArgumentException(function.name().toLowerCase(Locale.ROOT) + " needs a column");
+                }
+                if (column != null) {
+                    ColumnVector.Kind kind = aggregateKind(fileSchema, column);
+                    boolean numeric = kind != ColumnVector.Kind.STRING && kind != ColumnVector.Kind.BOOLEAN;
+                    if ((function == AggregateFunction.SUM || function == AggregateFunction.AVG) && !numeric) {
+                        throw new IllegalArgumentException(function.name().toLowerCase(Locale.ROOT)
+                                + " needs a numeric column: " + column);
+                    }
+                }
+                functions[a] = function;
+                aggregateColumns[a] = column;
+                resultColumns.add(aggregate.getAlias() != null && !aggregate.getAlias().trim().isEmpty()
+                        ? aggregate.getAlias()
+                        : function.name().toLowerCase(Locale.ROOT) + "(" + (column == null ? "*" : column) + ")");
+            }
+            for (String key : groupBy) {
+                aggregateKind(fileSchema, key);
+            }
+            int limit = request.getLimit() == null
+                    ? aggregateConfig.getDefaultLimit()
+                    : Math.max(0, Math.min(request.getLimit(), aggregateConfig.getMaxLimit()));
+
+            AggregateResult result = new AggregateResult();
+            result.setColumns(resultColumns);
+
+            // Ungrouped, unfiltered count/min/max are answered from the footer without reading any pages
+            if (groupBy.isEmpty() && filter == null) {
+                Object[] values = aggregateFromStatistics(blocks, fileSchema, functions, aggregateColumns);
+                if (values != null) {
+                    result.setRows(Collections.singletonList(toResultRow(resultColumns, values)));
+                    result.setGroupCount(1);
+                    result.setFromStatistics(true);
+                    return result;
+                }
+            }
+
+            // Only key and aggregated columns are projected; readRowGroup adds the filter's
+            Set<String> needed = new LinkedHashSet<>(groupBy);
+            for (String column : aggregateColumns) {
+                if (column != null) {
+                    needed.add(column);
+                }
+            }
+            if (needed.isEmpty() && filter != null) {
+                needed.addAll(filter.getColumns());
+            }
+            MessageType projection = projectSchema(fileSchema, new ArrayList<>(needed));
+
+            int[] keyColumns = new int[groupBy.size()];
+            ColumnVector.Kind[] keyKinds = new ColumnVector.Kind[groupBy.size()];
+            for (int k = 0; k < keyColumns.length; k++) {
+                keyColumns[k] = projection.getFieldIndex(groupBy.get(k));
+                keyKinds[k] = ColumnVector.kindOf(projection.getType(keyColumns[k]));
+            }
+            int[] valueColumns = new int[functions.length];
+            ColumnVector.Kind[] valueKinds = new ColumnVector.Kind[functions.length];
+            for (int a = 0; a < functions.length; a++) {
+                valueColumns[a] = aggregateColumns[a] == null ? -1 : projection.getFieldIndex(aggregateColumns[a]);
+                valueKinds[a] = aggregateColumns[a] == null ? null
+                        : ColumnVector.kindOf(projection.getType(valueColumns[a]));
+            }
+
+            // Row groups are aggregated in parallel on the scan pool and merged as they finish
+            ScanTarget scan = new ScanTarget(inputFile, blocks, fileSchema, projection, filter, metrics);
+            HashAggregator total = new HashAggregator(keyColumns, keyKinds, functions, valueColumns, valueKinds,
+                    aggregateConfig.getMaxGroups());
+            scanScheduler.scanUnordered(blocks.size(),
+                    group -> {
+                        HashAggregator partial = new HashAggregator(keyColumns, keyKinds, functions, valueColumns,
+                                valueKinds, aggregateConfig.getMaxGroups());
+                        readRowGroup(scan, group, partial::add);
+                        return partial;
+                    },
+                    (group, partial) -> total.merge(partial));
+
+            List<Object[]> rows = total.rows();
+            rows.sort((a, b) -> compareKeys(a, b, keyColumns.length));
+            List<Map<String, Object>> resultRows = new ArrayList<>();
+            for (Object[] row : rows.subList(0, Math.min(limit, rows.size()))) {
+                resultRows.add(toResultRow(resultColumns, row));
+            }
+            result.setRows(resultRows);
+            result.setGroupCount(rows.size());
+            log.debug("Aggregated {} into {} groups; fetched {} bytes in {} requests",
+                    inputFile, rows.size(), inputFile.getBytesFetched(), inputFile.getRequestCount());
+            return result;
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to aggregate Parquet data", e);
+            throw new RuntimeException("Failed to aggregate Parquet data", e);
+        }
+    }
+
+    private ColumnVector.Kind aggregateKind(MessageType fileSchema, String column) {
+        if (!fileSchema.containsField(column)) {
+            throw new IllegalArgumentException("Unknown column: " + column);
+        }
+        ColumnVector.Kind kind = ColumnVector.kindOf(fileSchema.getType(column));
+        if (kind == ColumnVector.Kind.OBJECT) {
+            throw new IllegalArgumentException("Only primitive columns can be grouped or aggregated: " + column);
+        }
+        return kind;
     }
 
-    private long countRows(File parquetFile) throws IOException {
-        long count = 0;
-        try (ParquetReader<GenericRecord> reader = AvroParquetReader
-                .<GenericRecord>builder(new LocalInputFile(parquetFile))
-                .build()) {
+    /**
+     * Answers count(*), count(column), min and max from chunk statistics. Returns null when
+     * any aggregate needs a scan: sums and averages, string or unsigned columns, or chunks
+     * whose statistics are missing or leave out values that are present.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private Object[] aggregateFromStatistics(List<BlockMetaData> blocks, MessageType fileSchema,
+                                             AggregateFunction[] functions, String[] columns) {
+        Object[] values = new Object[functions.length];
+        for (int a = 0; a < functions.length; a++) {
+            String column = columns[a];
+            if (column == null) {
+                values[a] = Arrays.stream(footerRowCounts(blocks)).sum();
+                continue;
+            }
+            if (functions[a] == AggregateFunction.SUM || functions[a] == AggregateFunction.AVG) {
+                return null;
+            }
+            Type field = fileSchema.getType(column);
+            LogicalTypeAnnotation annotation = field.getLogicalTypeAnnotation();
+            boolean unsigned = annotation instanceof LogicalTypeAnnotation.IntLogicalTypeAnnotation
+                    && !((LogicalTypeAnnotation.IntLogicalTypeAnnotation) annotation).isSigned();
+            if (functions[a] != AggregateFunction.COUNT
+                    && (ColumnVector.kindOf(field) == ColumnVector.Kind.STRING || unsigned)) {
+                return null;
+            }
+
+            Statistics merged = Statistics.createStats(field);
+            long nonNull = 0;
+            for (BlockMetaData block : blocks) {
+                for (ColumnChunkMetaData chunk : block.getColumns()) {
+                    if (!column.equals(chunk.getPath().toDotString())) {
+                        continue;
+                    }
+                    Statistics chunkStats = chunk.getStatistics();
+                    if (chunkStats == null || chunkStats.isEmpty() || !chunkStats.isNumNullsSet()) {
+                        return null;
+                    }
+                    long chunkValues = chunk.getValueCount() - chunkStats.getNumNulls();
+                    // Writers drop min/max they cannot order, such as NaN, while still writing values
+                    if (chunkValues > 0 && !chunkStats.hasNonNullValue()) {
+                        return null;
+                    }
+                    nonNull += chunkValues;
+                    merged.mergeStatistics(chunkStats);
+                }
+            }
+            if (functions[a] == AggregateFunction.COUNT) {
+                values[a] = nonNull;
+            } else if (merged.hasNonNullValue()) {
+                values[a] = functions[a] == AggregateFunction.MIN ? merged.genericGetMin() : merged.genericGetMax();
+            }
+        }
+        return values;
+    }
 
-            GenericRecord record;
-            while ((record = reader.read()) != null) {
-                count++;
+    // Orders groups by key, nulls last
+    @SuppressWarnings("unchecked")
+    private static int compareKeys(Object[] a, Object[] b, int keys) {
+        for (int k = 0; k < keys; k++) {
+            if (a[k] == b[k]) {
+                continue;
+            }
+            if (a[k] == null) {
+                return 1;
             }
+            if (b[k] == null) {
+                return -1;
+            }
+            int result = ((Comparable<Object>) a[k]).compareTo(b[k]);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    private Map<String, Object> toResultRow(List<String> columns, Object[] values) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int c = 0; c < columns.size(); c++) {
+            row.put(columns.get(c), values[c]);
         }
-        return count;
+        return row;
+    }
+
+    @Override
+    public List<ParquetDataset> getDatasets() {
+        return datasetService.getDatasets();
     }
 
     @Override
-    public ParquetData getParquetData(String fileId, int page, int pageSize) {
+    public ParquetMetadata getDatasetMetadata(String datasetId) {
+        return sharedRead("dataset_metadata", DATASET_KEY_PREFIX + datasetId, () -> readDatasetMetadata(datasetId));
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private ParquetMetadata readDatasetMetadata(String datasetId) {
         try {
-            // Find the file by ID
-            List<ParquetFile> files = getAllParquetFiles();
-            ParquetFile file = files.stream()
-                    .filter(f -> f.getId().equals(fileId))
-                    .findFirst()
-                    .orElseThrow(() -> new RuntimeException("File not found with ID: " + fileId));
-
-            // Download the Parquet file to a temporary location
-            String s3Key = file.getPath().replace("s3://" + s3ClientConfig.getBucketName() + "/", "");
-            File tempFile = downloadParquetFile(s3Key);
-
-            // Read Parquet file using Avro
-            ParquetData data = new ParquetData();
-            List<Map<String, Object>> rows = new ArrayList<>();
-            List<ParquetColumn> columns = new ArrayList<>();
-            Schema schema = null;
-            
-            // Calculate proper pagination values
-            int startIndex = page * pageSize;
-            int rowIndex = 0;
-            int totalRows = 0;
-            
-            try (ParquetReader<GenericRecord> reader = AvroParquetReader
-                    .<GenericRecord>builder(new LocalInputFile(tempFile))
-                    .build()) {
-
-                GenericRecord record = reader.read();
-                if (record != null) {
-                    schema = record.getSchema();
-                    totalRows++;
-
-                    // Get columns
-                    for (Schema.Field field : schema.getFields()) {
-                        ParquetColumn column = new ParquetColumn();
-                        column.setName(field.name());
-                        column.setType(mapAvroTypeToParquetType(field.schema()));
-                        column.setNullable(isNullable(field.schema()));
-
-                        // Set statistics
-                        ParquetColumn.ColumnStatistics stats = new ParquetColumn.ColumnStatistics();
-                        stats.setNullCount(0);
-                        stats.setDistinctCount(0);
-                        column.setStatistics(stats);
-
-                        columns.add(column);
+            DatasetService.Dataset dataset = datasetService.getDataset(datasetId);
+            ParquetDataset descriptor = dataset.getDescriptor();
+            try (RequestMetrics metrics = parquetMetrics.request("dataset_metadata", descriptor.getSize())) {
+                // Row groups of every file in key order, numbered across the dataset
+                List<BlockMetaData> blocks = new ArrayList<>();
+                Set<String> createdBy = new LinkedHashSet<>();
+                for (DatasetService.Member member : dataset.getMembers()) {
+                    blocks.addAll(member.getFooter().getBlocks());
+                    createdBy.add(member.getFooter().getFileMetaData().getCreatedBy());
+                }
+
+                ParquetMetadata metadata = new ParquetMetadata();
+                metadata.setId(datasetId);
+                metadata.setName(descriptor.getName());
+                metadata.setPath(descriptor.getPath());
+                metadata.setSize(descriptor.getSize());
+                metadata.setLastModified(descriptor.getLastModified());
+                metadata.setCreatedAt(descriptor.getLastModified());
+                metadata.setFormat("PARQUET");
+                metadata.setSchema(buildColumns(dataset.getSchema(), blocks));
+                applyBlockStatistics(metadata, blocks, descriptor.getSize(), String.join(",", createdBy));
+                metadata.setFileCount(descriptor.getFileCount());
+                metadata.setPartitionColumns(descriptor.getPartitionColumns());
+
+                // Partition columns have no chunks; their statistics come from the directory values
+                for (ParquetColumn column : metadata.getSchema()) {
+                    if (!descriptor.getPartitionColumns().contains(column.getName())) {
+                        continue;
                     }
-                    data.setColumns(columns);
-                    
-                    // Add the first record we already read
-                    if (startIndex == 0) {
-                        Map<String, Object> row = new HashMap<>();
-                        for (Schema.Field field : schema.getFields()) {
-                            String name = field.name();
-                            Object value = record.get(name);
-                            value = convertAvroValueToJava(value);
-                            row.put(name, value);
+                    long nulls = 0;
+                    Comparable min = null;
+                    Comparable max = null;
+                    for (DatasetService.Member member : dataset.getMembers()) {
+                        Comparable value = (Comparable) member.getPartitionValue(column.getName());
+                        if (value == null) {
+                            nulls += Arrays.stream(footerRowCounts(member.getFooter().getBlocks())).sum();
+                        } else {
+                            min = min == null || value.compareTo(min) < 0 ? value : min;
+                            max = max == null || value.compareTo(max) > 0 ? value : max;
                         }
-                        rows.add(row);
+                    }
+                    ParquetColumn.ColumnStatistics stats = column.getStatistics();
+                    stats.setNullCount(nulls);
+                    stats.setMin(min == null ? null : min.toString());
+                    stats.setMax(max == null ? null : max.toString());
+                }
+                return metadata;
+            }
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to read dataset metadata", e);
+            throw new RuntimeException("Failed to read dataset metadata", e);
+        }
+    }
+
+    /**
+     * Reads one page of a dataset. Rows are numbered through the files in key order using
+     * footer row counts, or per-group matching counts when filtering, so a page only opens
+     * the row groups it overlaps. The filter is bound to each file's partition values first:
+     * files it rules out are never read, and files it fully admits are read unfiltered.
+     */
+    @Override
+    public ParquetData getDatasetData(String datasetId, int page, int pageSize, List<String> columns,
+                                      String filter) {
+        return sharedRead("dataset_data", DATASET_KEY_PREFIX + datasetId,
+                () -> readDatasetData(datasetId, page, pageSize, columns, filter), page, pageSize, columns, filter);
+    }
+
+    private ParquetData readDatasetData(String datasetId, int page, int pageSize, List<String> columns,
+                                        String filter) {
+        try {
+            DatasetService.Dataset dataset = datasetService.getDataset(datasetId);
+            try (RequestMetrics metrics = parquetMetrics.request("dataset_data", dataset.getDescriptor().getSize())) {
+                List<DatasetService.Member> members = dataset.getMembers();
+                MessageType projection = projectSchema(dataset.getSchema(), columns);
+                String filterText = filter == null || filter.trim().isEmpty() ? null : filter.trim();
+
+                ScanTarget[] scans = new ScanTarget[members.size()];
+                boolean[] pruned = new boolean[members.size()];
+                List<BlockMetaData> allBlocks = new ArrayList<>();
+                for (int m = 0; m < members.size(); m++) {
+                    DatasetService.Member member = members.get(m);
+                    FilterExpression bound = filterText == null ? null
+                            : FilterExpression.bind(filterText, dataset.getSchema(), member.getKnownValues());
+                    pruned[m] = bound != null && bound.matchesNone();
+                    MessageType fileSchema = member.getFooter().getFileMetaData().getSchema();
+                    List<BlockMetaData> blocks = member.getFooter().getBlocks();
+                    scans[m] = new ScanTarget(metrics.track(catalog.openInputFile(member.getFile())), blocks,
+                            fileSchema, fileProjection(projection, fileSchema),
+                            bound == null || bound.matchesAll() ? null : bound, metrics);
+                    allBlocks.addAll(blocks);
+                }
+
+                long[][] rowCounts = filterText == null ? null : dataset.getFilteredCounts(filterText);
+                if (rowCounts == null) {
+                    rowCounts = countDatasetRows(scans, pruned);
+                    if (filterText != null) {
+                        dataset.putFilteredCounts(filterText, rowCounts);
                     }
                 }
+                long totalRows = 0;
+                for (long[] counts : rowCounts) {
+                    totalRows += Arrays.stream(counts).sum();
+                }
 
-                // Skip records until we reach the start of the requested page
-                while (rowIndex < startIndex - 1 && reader.read() != null) { // -1 because we already read one record
-                    rowIndex++;
-                    totalRows++;
-                }
-                
-                // Read records for the current page
-                GenericRecord dataRecord;
-                int recordsRead = (startIndex == 0) ? 1 : 0; // Account for first record if on page 0
-                
-                while (recordsRead < pageSize && (dataRecord = reader.read()) != null) {
-                    Map<String, Object> row = new HashMap<>();
-                    
-                    for (Schema.Field field : schema.getFields()) {
-                        String name = field.name();
-                        Object value = dataRecord.get(name);
-                        value = convertAvroValueToJava(value);
-                        row.put(name, value);
+                ParquetData data = new ParquetData();
+                data.setColumns(buildColumns(projection, allBlocks));
+                data.setTotalRows(totalRows);
+                data.setCurrentPage(page);
+                data.setPageSize(pageSize);
+                data.setRows(new ArrayList<>());
+                long startIndex = (long) page * pageSize;
+                if (startIndex >= totalRows || pageSize <= 0) {
+                    return data;
+                }
+                long endIndex = Math.min(totalRows, startIndex + pageSize);
+
+                // The row groups the page overlaps, as {file, group, rows to skip, rows to take}
+                List<long[]> parts = new ArrayList<>();
+                long position = 0;
+                for (int m = 0; m < rowCounts.length && position < endIndex; m++) {
+                    for (int g = 0; g < rowCounts[m].length && position < endIndex; g++) {
+                        long count = rowCounts[m][g];
+                        if (count > 0 && position + count > startIndex) {
+                            long skip = Math.max(0, startIndex - position);
+                            parts.add(new long[] { m, g, skip, Math.min(count, endIndex - position) - skip });
+                        }
+                        position += count;
                     }
-                    
-                    rows.add(row);
-                    recordsRead++;
-                    totalRows++;
                 }
-                
-                // Count remaining records to get total
-                while (reader.read() != null) {
-                    totalRows++;
+
+                // Parts are read concurrently, across files too, and land in page order
+                RowBatch rows = new RowBatch(projection, (int) (endIndex - startIndex));
+                int[] offsets = new int[parts.size()];
+                for (int p = 1; p < offsets.length; p++) {
+                    offsets[p] = offsets[p - 1] + (int) parts.get(p - 1)[3];
+                }
+                scanScheduler.scanUnordered(parts.size(),
+                        task -> {
+                            long[] part = parts.get(task);
+                            return readDatasetPart(members.get((int) part[0]), scans[(int) part[0]], projection,
+                                    (int) part[1], part[2], part[3]);
+                        },
+                        (task, values) -> {
+                            for (int i = 0; i < values.length; i++) {
+                                for (int c = 0; c < rows.getColumnCount(); c++) {
+                                    rows.column(c).set(offsets[task] + i, values[i][c]);
+                                }
+                            }
+                        });
+                rows.setSize((int) (endIndex - startIndex));
+                for (int row = 0; row < rows.size(); row++) {
+                    data.getRows().add(toRow(rows, row));
+                }
+                log.debug("Dataset page {} of {} read {} row groups across files", page,
+                        dataset.getDescriptor().getName(), parts.size());
+                return data;
+            }
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to read dataset data", e);
+            throw new RuntimeException("Failed to read dataset data", e);
+        }
+    }
+
+    // The dataset columns this file has; a file with none of them still reads one column to count its rows
+    private MessageType fileProjection(MessageType projection, MessageType fileSchema) {
+        List<Type> fields = new ArrayList<>();
+        for (Type field : projection.getFields()) {
+            if (fileSchema.containsField(field.getName())) {
+                fields.add(fileSchema.getType(field.getName()));
+            }
+        }
+        if (fields.isEmpty()) {
+            fields.add(fileSchema.getType(0));
+        }
+        return new MessageType(fileSchema.getName(), fields);
+    }
+
+    /**
+     * Rows per file and row group: from the footers, except where a bound filter still has
+     * to be evaluated. Those groups are counted together on the scan pool, whichever file
+     * they belong to; pruned files count zero without being opened.
+     */
+    private long[][] countDatasetRows(ScanTarget[] scans, boolean[] pruned) throws IOException {
+        long[][] counts = new long[scans.length][];
+        List<int[]> toCount = new ArrayList<>();
+        for (int m = 0; m < scans.length; m++) {
+            if (pruned[m]) {
+                counts[m] = new long[scans[m].blocks.size()];
+            } else if (scans[m].filter == null) {
+                counts[m] = footerRowCounts(scans[m].blocks);
+            } else {
+                counts[m] = new long[scans[m].blocks.size()];
+                for (int g = 0; g < counts[m].length; g++) {
+                    toCount.add(new int[] { m, g });
                 }
             }
+        }
+        scanScheduler.scanUnordered(toCount.size(),
+                task -> {
+                    ScanTarget scan = scans[toCount.get(task)[0]];
+                    return countMatchingRows(scan.inputFile, scan.blocks.get(toCount.get(task)[1]), scan.filter,
+                            scan.metrics);
+                },
+                (task, count) -> counts[toCount.get(task)[0]][toCount.get(task)[1]] = count);
+        return counts;
+    }
 
-            data.setRows(rows);
-            data.setTotalRows(totalRows);
-            data.setCurrentPage(page);
-            data.setPageSize(pageSize);
+    // Rows of one part in dataset projection order; partition values come from the path, absent columns are null
+    private Object[][] readDatasetPart(DatasetService.Member member, ScanTarget scan, MessageType projection,
+                                       int group, long skip, long take) throws IOException {
+        int[] source = new int[projection.getFieldCount()];
+        for (int c = 0; c < source.length; c++) {
+            String name = projection.getFieldName(c);
+            source[c] = member.isPartitionColumn(name) || !scan.projection.containsField(name)
+                    ? -1 : scan.projection.getFieldIndex(name);
+        }
+        Object[][] values = new Object[(int) take][];
+        int[] filled = { 0 };
+        readRowGroupRange(scan, group, skip, take, batch -> {
+            for (int row = 0; row < batch.size(); row++) {
+                Object[] rowValues = new Object[source.length];
+                for (int c = 0; c < source.length; c++) {
+                    rowValues[c] = source[c] >= 0
+                            ? batch.getValue(source[c], row)
+                            : member.getPartitionValue(projection.getFieldName(c));
+                }
+                values[filled[0]++] = rowValues;
+            }
+        });
+        return values;
+    }
 
-            // Clean up the temporary file
-            tempFile.delete();
+    // What a full-file scan reads: the file, its row groups, the projection and an optional filter,
+    // plus the metrics of the request it serves
+    private static final class ScanTarget {
+        final InputFile inputFile;
+        final List<BlockMetaData> blocks;
+        final MessageType fileSchema;
+        final MessageType projection;
+        final FilterExpression filter;
+        final RequestMetrics metrics;
+
+        ScanTarget(InputFile inputFile, List<BlockMetaData> blocks, MessageType fileSchema,
+                   MessageType projection, FilterExpression filter, RequestMetrics metrics) {
+            this.inputFile = inputFile;
+            this.blocks = blocks;
+            this.fileSchema = fileSchema;
+            this.projection = projection;
+            this.filter = filter;
+            this.metrics = metrics;
+        }
+    }
 
-            return data;
-        } catch (Exception e) {
-            log.error("Failed to read Parquet data", e);
-            throw new RuntimeException("Failed to read Parquet data", e);
+    /**
+     * Reads the whole file in projection order. Row groups are decoded in parallel on the
+     * scan pool and handed to the consumer on this thread, in file order, a batch at a time;
+     * each group may only decode a few batches ahead, so memory does not grow with its size.
+     */
+    private void scanFile(ScanTarget scan, BatchConsumer consumer) throws IOException {
+        scanScheduler.<RowBatch>streamOrdered(scan.blocks.size(),
+                (group, out) -> readRowGroup(scan, group, batch -> out.accept(batch.copy())),
+                consumer::accept);
+    }
+
+    /**
+     * Decodes one row group, column-wise when the projection is flat and unfiltered and
+     * through Avro records otherwise. The byte range selects the group by its midpoint,
+     * and a filter may prune it from statistics without fetching any pages.
+     */
+    private void readRowGroup(ScanTarget scan, int group, BatchConsumer consumer) throws IOException {
+        BlockMetaData block = scan.blocks.get(group);
+        long start = block.getStartingPos();
+        long end = start + block.getCompressedSize();
+        if (scan.filter == null && VectorizedParquetReader.supports(scan.projection)) {
+            ParquetReadOptions options = ParquetReadOptions.builder().withRange(start, end).build();
+            try (VectorizedParquetReader reader = new VectorizedParquetReader(
+                    scan.inputFile, scan.projection, VectorizedParquetReader.DEFAULT_BATCH_SIZE, options)) {
+                // Only the reader's own time counts as decoding; the consumer's is its own stage
+                long decodeNanos = 0;
+                long decodeStart = System.nanoTime();
+                RowBatch batch;
+                while ((batch = reader.nextBatch()) != null) {
+                    decodeNanos += System.nanoTime() - decodeStart;
+                    consumer.accept(batch);
+                    decodeStart = System.nanoTime();
+                }
+                scan.metrics.record(RequestMetrics.DECODE, decodeNanos + System.nanoTime() - decodeStart);
+            }
+            return;
+        }
+
+        ParquetReader.Builder<GenericRecord> builder = AvroParquetReader
+                .<GenericRecord>builder(scan.inputFile)
+                .withConf(projectionConf(withFilterColumns(scan.projection, scan.fileSchema, scan.filter)))
+                .withFileRange(start, end);
+        if (scan.filter != null) {
+            builder.withFilter(FilterCompat.get(scan.filter.getPredicate()));
+        }
+        try (ParquetReader<GenericRecord> reader = builder.build()) {
+            readRecords(reader, scan.projection, Long.MAX_VALUE, scan.metrics, consumer);
+        }
+    }
+
+    /**
+     * Reads {@code take} rows of one row group after skipping {@code skip}, counting only rows
+     * that pass the filter. Unfiltered flat projections skip whole pages without decoding them.
+     */
+    private void readRowGroupRange(ScanTarget scan, int group, long skip, long take, BatchConsumer consumer)
+            throws IOException {
+        BlockMetaData block = scan.blocks.get(group);
+        long start = block.getStartingPos();
+        long end = start + block.getCompressedSize();
+        if (scan.filter == null && VectorizedParquetReader.supports(scan.projection)) {
+            ParquetReadOptions options = ParquetReadOptions.builder().withRange(start, end).build();
+            try (VectorizedParquetReader reader = new VectorizedParquetReader(scan.inputFile, scan.projection,
+                    (int) Math.min(take, VectorizedParquetReader.DEFAULT_BATCH_SIZE), options)) {
+                long decodeStart = System.nanoTime();
+                reader.skipRows(skip);
+                long remaining = take;
+                long decodeNanos = 0;
+                RowBatch batch;
+                while (remaining > 0 && (batch = reader.nextBatch((int) remaining)) != null) {
+                    decodeNanos += System.nanoTime() - decodeStart;
+                    consumer.accept(batch);
+                    remaining -= batch.size();
+                    decodeStart = System.nanoTime();
+                }
+                scan.metrics.record(RequestMetrics.DECODE, decodeNanos + System.nanoTime() - decodeStart);
+            }
+            return;
+        }
+
+        ParquetReader.Builder<GenericRecord> builder = AvroParquetReader
+                .<GenericRecord>builder(scan.inputFile)
+                .withConf(projectionConf(withFilterColumns(scan.projection, scan.fileSchema, scan.filter)))
+                .withFileRange(start, end);
+        if (scan.filter != null) {
+            builder.withFilter(FilterCompat.get(scan.filter.getPredicate()));
+        }
+        try (ParquetReader<GenericRecord> reader = builder.build()) {
+            long toSkip = skip;
+            while (toSkip > 0 && reader.read() != null) {
+                toSkip--;
+            }
+            readRecords(reader, scan.projection, take, scan.metrics, consumer);
+        }
+    }
+
+    /**
+     * Reads one page in sort order. Without a filter the sort engine yields file row numbers
+     * from the key column alone, and only the row groups holding those rows are decoded for
+     * the page; with one, the engine keeps the projected values of the top rows it scans.
+     */
+    private RowBatch readSortedPage(ParquetFile file, ScanTarget scan, SortOrder sort, long startIndex, int count)
+            throws IOException {
+        String column = sort.getColumn();
+        SortRun.KeyType keyType = SortRun.keyTypeOf(ColumnVector.kindOf(scan.fileSchema.getType(column)));
+        RowBatch page = new RowBatch(scan.projection, count);
+
+        if (scan.filter == null) {
+            ScanTarget keyScan = new ScanTarget(scan.inputFile, scan.blocks, scan.fileSchema,
+                    projectSchema(scan.fileSchema, Collections.singletonList(column)), null, scan.metrics);
+            long[] rows = sortEngine.sortedRows(file.getId() + "\n" + file.getEtag() + "\n" + column,
+                    footerRowCounts(scan.blocks), keyType, sort.isAscending(), startIndex, count,
+                    (group, consumer) -> readRowGroup(keyScan, group, consumer));
+            fetchRows(scan, rows, page);
+            page.setSize(rows.length);
+            return page;
+        }
+
+        // The key is read alongside the projection, after it when it is not displayed
+        List<Type> fields = new ArrayList<>(scan.projection.getFields());
+        if (!scan.projection.containsField(column)) {
+            fields.add(scan.fileSchema.getType(column));
+        }
+        MessageType readSchema = new MessageType(scan.fileSchema.getName(), fields);
+        ScanTarget readScan = new ScanTarget(scan.inputFile, scan.blocks, scan.fileSchema, readSchema, scan.filter,
+                scan.metrics);
+        List<Object[]> rows = sortEngine.sortedValues(scan.blocks.size(), keyType, sort.isAscending(),
+                readSchema.getFieldIndex(column), scan.projection.getFieldCount(), startIndex, count,
+                (group, consumer) -> readRowGroup(readScan, group, consumer));
+        for (int row = 0; row < rows.size(); row++) {
+            for (int c = 0; c < page.getColumnCount(); c++) {
+                page.column(c).set(row, rows.get(row)[c]);
+            }
+        }
+        page.setSize(rows.size());
+        return page;
+    }
+
+    /**
+     * Copies the given file rows into {@code page}, in the order given. Each row group holding
+     * any of them is decoded once, in parallel on the scan pool.
+     */
+    private void fetchRows(ScanTarget scan, long[] rows, RowBatch page) throws IOException {
+        long[] groupStarts = new long[scan.blocks.size()];
+        for (int i = 1; i < groupStarts.length; i++) {
+            groupStarts[i] = groupStarts[i - 1] + scan.blocks.get(i - 1).getRowCount();
+        }
+
+        // Page positions to fill from each group, in file order within the group
+        Map<Integer, List<Integer>> positionsByGroup = new TreeMap<>();
+        for (int position = 0; position < rows.length; position++) {
+            int group = Arrays.binarySearch(groupStarts, rows[position]);
+            if (group < 0) {
+                group = -group - 2;
+            }
+            // Empty groups share their start with the next one
+            while (group + 1 < groupStarts.length && groupStarts[group + 1] <= rows[position]) {
+                group++;
+            }
+            positionsByGroup.computeIfAbsent(group, g -> new ArrayList<>()).add(position);
+        }
+        List<Integer> groups = new ArrayList<>(positionsByGroup.keySet());
+        for (List<Integer> positions : positionsByGroup.values()) {
+            positions.sort(Comparator.comparingLong(position -> rows[position]));
+        }
+
+        scanScheduler.scanUnordered(groups.size(),
+                task -> {
+                    int group = groups.get(task);
+                    List<Integer> positions = positionsByGroup.get(group);
+                    Object[][] values = new Object[positions.size()][];
+                    long[] batchStart = { groupStarts[group] };
+                    int[] next = { 0 };
+                    readRowGroup(scan, group, batch -> {
+                        long batchEnd = batchStart[0] + batch.size();
+                        while (next[0] < positions.size() && rows[positions.get(next[0])] < batchEnd) {
+                            int row = (int) (rows[positions.get(next[0])] - batchStart[0]);
+                            Object[] rowValues = new Object[batch.getColumnCount()];
+                            for (int c = 0; c < rowValues.length; c++) {
+                                rowValues[c] = batch.getValue(c, row);
+                            }
+                            values[next[0]++] = rowValues;
+                        }
+                        batchStart[0] = batchEnd;
+                    });
+                    return values;
+                },
+                (task, values) -> {
+                    List<Integer> positions = positionsByGroup.get(groups.get(task));
+                    for (int i = 0; i < values.length; i++) {
+                        for (int c = 0; c < page.getColumnCount(); c++) {
+                            page.column(c).set(positions.get(i), values[i][c]);
+                        }
+                    }
+                });
+    }
+
+    // Record-reader fallback for filters and nested columns: converted values are copied into a reused batch
+    private void readRecords(ParquetReader<GenericRecord> reader, MessageType projection, long limit,
+                             RequestMetrics metrics, BatchConsumer consumer) throws IOException {
+        RowBatch batch = new RowBatch(projection, (int) Math.min(limit, VectorizedParquetReader.DEFAULT_BATCH_SIZE));
+        long read = 0;
+        long decodeNanos = 0;
+        long convertNanos = 0;
+        GenericRecord record;
+        while (true) {
+            long start = System.nanoTime();
+            record = read < limit ? reader.read() : null;
+            long decoded = System.nanoTime();
+            decodeNanos += decoded - start;
+            if (record == null) {
+                break;
+            }
+            int row = batch.size();
+            for (int c = 0; c < batch.getColumnCount(); c++) {
+                ColumnVector column = batch.column(c);
+                column.set(row, convertAvroValueToJava(record.get(column.getName())));
+            }
+            batch.setSize(row + 1);
+            read++;
+            convertNanos += System.nanoTime() - decoded;
+            if (batch.size() == batch.capacity()) {
+                consumer.accept(batch);
+                batch.reset();
+            }
+        }
+        if (batch.size() > 0) {
+            consumer.accept(batch);
+        }
+        metrics.record(RequestMetrics.DECODE, decodeNanos);
+        metrics.record(RequestMetrics.CONVERT, convertNanos);
+    }
+
+    private FilterExpression compileFilter(String filter, MessageType fileSchema) {
+        if (filter == null || filter.trim().isEmpty()) {
+            return null;
+        }
+        return FilterExpression.compile(filter, fileSchema);
+    }
+
+    private long[] footerRowCounts(List<BlockMetaData> blocks) {
+        long[] counts = new long[blocks.size()];
+        for (int i = 0; i < blocks.size(); i++) {
+            counts[i] = blocks.get(i).getRowCount();
+        }
+        return counts;
+    }
+
+    /**
+     * Counts the rows matching the filter in each row group, reading only the filter's columns.
+     * Groups are counted concurrently on the scan pool. Row groups ruled out by statistics,
+     * dictionaries or bloom filters are never fetched and keep a count of zero.
+     */
+    private long[] countMatchingRows(InputFile inputFile, List<BlockMetaData> blocks, FilterExpression filter,
+                                     RequestMetrics metrics) throws IOException {
+        long[] counts = new long[blocks.size()];
+        scanScheduler.scanUnordered(blocks.size(),
+                group -> countMatchingRows(inputFile, blocks.get(group), filter, metrics),
+                (group, count) -> counts[group] = count);
+        return counts;
+    }
+
+    private long countMatchingRows(InputFile inputFile, BlockMetaData block, FilterExpression filter,
+                                   RequestMetrics metrics) throws IOException {
+        long start = System.nanoTime();
+        FilterCompat.Filter recordFilter = FilterCompat.get(filter.getPredicate());
+        // Column-index filtering would drop rows from the page reads without telling the
+        // record reader, so it is left to the page read
+        ParquetReadOptions options = ParquetReadOptions.builder()
+                .withRecordFilter(recordFilter)
+                .useColumnIndexFilter(false)
+                .withRange(block.getStartingPos(), block.getStartingPos() + block.getCompressedSize())
+                .build();
+
+        try (ParquetFileReader reader = ParquetFileReader.open(inputFile, options)) {
+            if (reader.getRowGroups().isEmpty()) {
+                return 0; // pruned before any data was fetched
+            }
+            MessageType fileSchema = reader.getFileMetaData().getSchema();
+            MessageType filterSchema = projectSchema(fileSchema, new ArrayList<>(filter.getColumns()));
+            reader.setRequestedSchema(filterSchema);
+            MessageColumnIO columnIO = new ColumnIOFactory(reader.getFileMetaData().getCreatedBy())
+                    .getColumnIO(filterSchema, fileSchema, true);
+
+            PageReadStore pages = reader.readNextRowGroup();
+            RecordReader<Group> records = columnIO.getRecordReader(
+                    pages, new GroupRecordConverter(filterSchema), recordFilter);
+            long matched = 0;
+            for (long i = 0; i < pages.getRowCount(); i++) {
+                if (records.read() != null && !records.shouldSkipCurrentRecord()) {
+                    matched++;
+                }
+            }
+            return matched;
+        } finally {
+            metrics.record(RequestMetrics.DECODE, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Restricts the file schema to the requested top-level columns, in request order.
+     * Returns the full schema when no columns are requested.
+     */
+    private MessageType projectSchema(MessageType fileSchema, List<String> columns) {
+        if (columns == null || columns.isEmpty()) {
+            return fileSchema;
+        }
+        List<Type> fields = new ArrayList<>();
+        for (String column : columns) {
+            if (!fileSchema.containsField(column)) {
+                throw new IllegalArgumentException("Unknown column: " + column);
+            }
+            fields.add(fileSchema.getType(column));
+        }
+        return new MessageType(fileSchema.getName(), fields);
+    }
+
+    // Hands the projection to AvroReadSupport so unselected column chunks are never fetched or decompressed
+    private Configuration projectionConf(MessageType projection) {
+        Configuration conf = new Configuration();
+        Schema avroProjection = new AvroSchemaConverter(conf).convert(projection);
+        AvroReadSupport.setRequestedProjection(conf, avroProjection);
+        AvroReadSupport.setAvroReadSchema(conf, avroProjection);
+        return conf;
+    }
+
+    // Filter columns must be read for the predicate to see them, even when they are not displayed
+    private MessageType withFilterColumns(MessageType projection, MessageType fileSchema, FilterExpression filter) {
+        if (filter == null) {
+            return projection;
+        }
+        List<Type> fields = new ArrayList<>(projection.getFields());
+        for (String column : filter.getColumns()) {
+            if (!projection.containsField(column)) {
+                fields.add(fileSchema.getType(column));
+            }
+        }
+        return new MessageType(fileSchema.getName(), fields);
+    }
+
+    private Map<String, Object> toRow(RowBatch batch, int row) {
+        Map<String, Object> values = new HashMap<>();
+        for (int c = 0; c < batch.getColumnCount(); c++) {
+            values.put(batch.column(c).getName(), batch.getValue(c, row));
         }
+        return values;
     }
 
     /**
@@ -361,38 +1479,45 @@ public class ParquetServiceImpl implements ParquetService {
     }
 
     @Override
-    public void downloadParquetFile(String fileId, String format, HttpServletResponse response) {
+    public void downloadParquetFile(String fileId, String format, List<String> columns, String filter,
+                                    String acceptEncoding, HttpServletResponse response) {
         try {
-            // Find the file by ID
-            List<ParquetFile> files = getAllParquetFiles();
-            ParquetFile file = files.stream()
-                    .filter(f -> f.getId().equals(fileId))
-                    .findFirst()
-                    .orElseThrow(() -> new RuntimeException("File not found with ID: " + fileId));
-
-            // Download the Parquet file to a temporary location
-            String s3Key = file.getPath().replace("s3://" + s3ClientConfig.getBucketName() + "/", "");
-            File tempFile = downloadParquetFile(s3Key);
-
-            // Set response headers
-            String fileName = file.getName().replace(".parquet", "");
-            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
-
-            if (format.equalsIgnoreCase("csv")) {
-                response.setContentType("text/csv");
-                response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + ".csv\"");
-                exportToCsv(tempFile, response.getOutputStream());
-            } else if (format.equalsIgnoreCase("excel")) {
-                response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
-                response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + ".xlsx\"");
-                exportToExcel(tempFile, response.getOutputStream());
-            } else {
-                response.sendError(400, "Invalid format. Supported formats: csv, excel");
+            ExportFormat exportFormat = ExportFormat.of(format);
+            ParquetFile file = catalog.getFile(fileId);
+            try (RequestLimiter.Permit permit = limiter.acquireStream("download", fileId);
+                 RequestMetrics metrics = parquetMetrics.request("download", file.getSize())) {
+                ScanTarget scan = openScan(file, columns, filter, metrics);
+
+                // Set response headers
+                String fileName = file.getName().replace(".parquet", "");
+                response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+                response.setContentType(exportFormat.getContentType());
+                response.setHeader("Content-Disposition",
+                        "attachment; filename=\"" + fileName + "." + exportFormat.getExtension() + "\"");
+
+                if (exportFormat.isCompressible()) {
+                    try (OutputStream outputStream = encodedOutputStream(response, acceptEncoding)) {
+                        export(scan, exportFormat, outputStream);
+                    }
+                } else {
+                    export(scan, exportFormat, response.getOutputStream());
+                }
             }
 
-            // Clean up
-            tempFile.delete();
-
+        } catch (TooManyRequestsException e) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+            try {
+                response.sendError(429, e.getMessage());
+            } catch (IOException ioException) {
+                log.error("Failed to send error response", ioException);
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected download request: {}", e.getMessage());
+            try {
+                response.sendError(400, e.getMessage());
+            } catch (IOException ioException) {
+                log.error("Failed to send error response", ioException);
+            }
         } catch (Exception e) {
             log.error("Failed to download Parquet file", e);
             try {
@@ -403,230 +1528,197 @@ public class ParquetServiceImpl implements ParquetService {
         }
     }
 
-    private File downloadParquetFile(String s3Key) throws IOException {
-        File tempFile = Files.createTempFile("parquet-", ".tmp").toFile();
-
-        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-                .bucket(s3ClientConfig.getBucketName())
-                .key(s3Key)
-                .build();
-
-        try (InputStream in = s3Client.getObject(getObjectRequest);
-             OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile))) {
-
-            byte[] buffer = new byte[1024];
-            int lengthRead;
-            while ((lengthRead = in.read(buffer)) > 0) {
-                out.write(buffer, 0, lengthRead);
-                out.flush();
-            }
+    @Override
+    public void writeExport(String fileId, ExportFormat format, List<String> columns, String filter,
+                            OutputStream outputStream) {
+        ParquetFile file = catalog.getFile(fileId);
+        try (RequestMetrics metrics = parquetMetrics.request("export_job", file.getSize())) {
+            export(openScan(file, columns, filter, metrics), format, outputStream);
+        } catch (IOException e) {
+            log.error("Failed to export Parquet file", e);
+            throw new RuntimeException("Failed to export Parquet file", e);
         }
-
-        return tempFile;
     }
 
-    private void exportToCsv(File parquetFile, OutputStream outputStream) throws IOException {
-        List<String> columnNames = new ArrayList<>();
-        Schema schema = null;
-
-        try (ParquetReader<GenericRecord> reader = AvroParquetReader
-                .<GenericRecord>builder(new LocalInputFile(parquetFile))
-                .build()) {
-
-            GenericRecord record = reader.read();
-            if (record != null) {
-                schema = record.getSchema();
-
-                // Get column names
-                for (Schema.Field field : schema.getFields()) {
-                    columnNames.add(field.name());
-                }
-            }
-        }
-
-        try (CSVPrinter csvPrinter = new CSVPrinter(
-                new OutputStreamWriter(outputStream, StandardCharsets.UTF_8),
-                CSVFormat.DEFAULT.builder().setHeader(columnNames.toArray(new String[0])).build())) {
-
-            try (ParquetReader<GenericRecord> reader = AvroParquetReader
-                    .<GenericRecord>builder(new LocalInputFile(parquetFile))
-                    .build()) {
-
-                GenericRecord record;
-                while ((record = reader.read()) != null) {
-                    List<Object> rowValues = new ArrayList<>();
-                    for (String columnName : columnNames) {
-                        Object value = record.get(columnName);
-                        rowValues.add(convertAvroValueToJava(value));
-                    }
-                    csvPrinter.printRecord(rowValues);
-                }
-            }
+    // Checks columns and filter against the (normally cached) footer, so bad input fails before a job is queued
+    @Override
+    public void validateExport(String fileId, List<String> columns, String filter) {
+        ParquetFile file = catalog.getFile(fileId);
+        try {
+            MessageType fileSchema = footerReader.readFooter(catalog.openInputFile(file)).getFileMetaData()
+                    .getSchema();
+            projectSchema(fileSchema, columns);
+            compileFilter(filter, fileSchema);
+        } catch (IOException e) {
+            log.error("Failed to read Parquet footer", e);
+            throw new RuntimeException("Failed to read Parquet footer", e);
         }
     }
 
-    private void exportToExcel(File parquetFile, OutputStream outputStream) throws IOException {
-        List<String> columnNames = new ArrayList<>();
-        Schema schema = null;
-
-        try (ParquetReader<GenericRecord> reader = AvroParquetReader
-                .<GenericRecord>builder(new LocalInputFile(parquetFile))
-                .build()) {
-
-            GenericRecord record = reader.read();
-            if (record != null) {
-                schema = record.getSchema();
+    private ScanTarget openScan(ParquetFile file, List<String> columns, String filter, RequestMetrics metrics)
+            throws IOException {
+        S3InputFile inputFile = metrics.track(catalog.openInputFile(file));
+        org.apache.parquet.hadoop.metadata.ParquetMetadata footer = readFooter(metrics, inputFile);
+        MessageType fileSchema = footer.getFileMetaData().getSchema();
+        return new ScanTarget(inputFile, footer.getBlocks(), fileSchema,
+                projectSchema(fileSchema, columns), compileFilter(filter, fileSchema), metrics);
+    }
 
-                // Get column names
-                for (Schema.Field field : schema.getFields()) {
-                    columnNames.add(field.name());
-                }
+    /**
+     * Joins an identical read already in flight, or runs this one once admitted. Only the
+     * request that runs the read holds a slot; the ones joining it just wait for its result.
+     */
+    private <T> T sharedRead(String endpoint, String key, Supplier<T> read, Object... arguments) {
+        List<Object> requestKey = new ArrayList<>(arguments.length + 2);
+        requestKey.add(endpoint);
+        requestKey.add(key);
+        requestKey.addAll(Arrays.asList(arguments));
+        return coalescer.share(endpoint, requestKey, () -> {
+            try (RequestLimiter.Permit permit = limiter.acquire(endpoint, key)) {
+                return read.get();
             }
-        }
+        });
+    }
 
-        SXSSFWorkbook workbook = new SXSSFWorkbook(100); // Keep 100 rows in memory, exceeding rows will be flushed to disk
+    private org.apache.parquet.hadoop.metadata.ParquetMetadata readFooter(RequestMetrics metrics,
+                                                                           S3InputFile inputFile) throws IOException {
+        long start = System.nanoTime();
         try {
-            Sheet sheet = workbook.createSheet("Data");
-
-            // Create header row
-            org.apache.poi.ss.usermodel.Row headerRow = sheet.createRow(0);
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerStyle.setFont(headerFont);
-
-            for (int i = 0; i < columnNames.size(); i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(columnNames.get(i));
-                cell.setCellStyle(headerStyle);
-            }
-
-            // Read Parquet data and add to Excel
-            int rowNum = 1;
-            try (ParquetReader<GenericRecord> reader = AvroParquetReader
-                    .<GenericRecord>builder(new LocalInputFile(parquetFile))
-                    .build()) {
-
-                GenericRecord record;
-                while ((record = reader.read()) != null) {
-                    org.apache.poi.ss.usermodel.Row excelRow = sheet.createRow(rowNum++);
-
-                    for (int i = 0; i < columnNames.size(); i++) {
-                        Cell cell = excelRow.createCell(i);
-                        Object value = record.get(columnNames.get(i));
-                        value = convertAvroValueToJava(value);
-
-                        if (value != null) {
-                            if (value instanceof Number) {
-                                cell.setCellValue(((Number) value).doubleValue());
-                            } else if (value instanceof Boolean) {
-                                cell.setCellValue((Boolean) value);
-                            } else if (value instanceof java.sql.Date) {
-                                cell.setCellValue(((java.sql.Date) value).toString());
-                            } else if (value instanceof java.sql.Timestamp) {
-                                cell.setCellValue(((java.sql.Timestamp) value).toString());
-                            } else {
-                                cell.setCellValue(value.toString());
-                            }
-                        }
-                    }
-                }
-            }
-
-            // Auto size columns for the first few columns only to save memory
-            int columnsToAutoSize = Math.min(columnNames.size(), 20);
-            for (int i = 0; i < columnsToAutoSize; i++) {
-                sheet.autoSizeColumn(i);
-            }
-
-            workbook.write(outputStream);
+            return footerReader.readFooter(inputFile);
         } finally {
-            workbook.dispose(); // Dispose of temporary files
+            metrics.record(RequestMetrics.FOOTER, System.nanoTime() - start);
         }
     }
 
-    // Custom InputFile implementation for Parquet to read from local files without Hadoop
-    private static class LocalInputFile implements InputFile {
-        private final File file;
-
-        LocalInputFile(File file) {
-            this.file = file;
-        }
-
-        @Override
-        public long getLength() throws IOException {
-            return file.length();
-        }
-
-        @Override
-        public SeekableInputStream newStream() throws IOException {
-            return new LocalSeekableInputStream(file);
+    private void export(ScanTarget scan, ExportFormat format, OutputStream outputStream) throws IOException {
+        switch (format) {
+            case CSV:
+                exportToCsv(scan, outputStream);
+                break;
+            case EXCEL:
+                exportToExcel(scan, outputStream);
+                break;
+            default:
+                exportToArrow(scan, outputStream);
         }
     }
 
-    // Custom SeekableInputStream implementation
-    private static class LocalSeekableInputStream extends SeekableInputStream {
-        private final RandomAccessFile randomAccessFile;
-
-        LocalSeekableInputStream(File file) throws IOException {
-            this.randomAccessFile = new RandomAccessFile(file, "r");
-        }
-
-        @Override
-        public long getPos() throws IOException {
-            return randomAccessFile.getFilePointer();
+    /**
+     * Buffers the response and, when the client accepts it, compresses on the fly:
+     * zstd first (cheaper per byte at similar ratios), then gzip. Closing the returned
+     * stream finishes the compressed frame.
+     */
+    private OutputStream encodedOutputStream(HttpServletResponse response, String acceptEncoding)
+            throws IOException {
+        OutputStream out = new BufferedOutputStream(response.getOutputStream(), exportConfig.getOutputBufferBytes());
+        if (!exportConfig.isCompressResponses()) {
+            return out;
         }
-
-        @Override
-        public void seek(long newPos) throws IOException {
-            randomAccessFile.seek(newPos);
+        response.setHeader("Vary", "Accept-Encoding");
+        Set<String> accepted = acceptedEncodings(acceptEncoding);
+        if (accepted.contains("zstd")) {
+            response.setHeader("Content-Encoding", "zstd");
+            return new ZstdOutputStream(out, exportConfig.getZstdLevel());
+        } else if (accepted.contains("gzip")) {
+            response.setHeader("Content-Encoding", "gzip");
+            return new GZIPOutputStream(out, exportConfig.getOutputBufferBytes());
         }
+        return out;
+    }
 
-        @Override
-        public int read() throws IOException {
-            return randomAccessFile.read();
+    // Codings listed in Accept-Encoding, minus any explicitly refused with q=0
+    private Set<String> acceptedEncodings(String acceptEncoding) {
+        Set<String> accepted = new HashSet<>();
+        if (acceptEncoding == null) {
+            return accepted;
         }
-
-        @Override
-        public int read(byte[] b) throws IOException {
-            return randomAccessFile.read(b);
+        for (String part : acceptEncoding.split(",")) {
+            String[] pieces = part.trim().split(";");
+            boolean refused = pieces.length > 1 && pieces[1].trim().matches("q=0(\\.0*)?");
+            if (!refused) {
+                accepted.add(pieces[0].trim().toLowerCase(Locale.ROOT));
+            }
         }
+        return accepted;
+    }
 
-        @Override
-        public int read(byte[] b, int off, int len) throws IOException {
-            return randomAccessFile.read(b, off, len);
+    /**
+     * Writes the header, then encodes row groups to CSV in parallel on the scan pool. Each
+     * group is encoded one batch at a time and its chunks are written in file order, so heap
+     * use is bounded by the chunks in flight rather than by the size of a row group.
+     */
+    private void exportToCsv(ScanTarget scan, OutputStream outputStream) throws IOException {
+        List<String> columnNames = new ArrayList<>();
+        for (Type field : scan.projection.getFields()) {
+            columnNames.add(field.getName());
         }
 
-        @Override
-        public void close() throws IOException {
-            randomAccessFile.close();
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        try (CSVPrinter printer = csvPrinter(header)) {
+            printer.printRecord(columnNames);
         }
+        header.writeTo(outputStream);
+        scanScheduler.<byte[]>streamOrdered(scan.blocks.size(),
+                (group, out) -> {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    try (CSVPrinter printer = csvPrinter(bytes)) {
+                        readRowGroup(scan, group, batch -> {
+                            long start = System.nanoTime();
+                            for (int row = 0; row < batch.size(); row++) {
+                                for (int c = 0; c < batch.getColumnCount(); c++) {
+                                    printer.print(batch.getValue(c, row));
+                                }
+                                printer.println();
+                            }
+                            printer.flush();
+                            scan.metrics.recordEncode("csv", System.nanoTime() - start);
+                            out.accept(bytes.toByteArray());
+                            bytes.reset();
+                        });
+                    }
+                },
+                outputStream::write);
+        outputStream.flush();
+    }
 
-        @Override
-        public void readFully(byte[] bytes) throws IOException {
-            randomAccessFile.readFully(bytes);
-        }
+    private CSVPrinter csvPrinter(OutputStream out) throws IOException {
+        return new CSVPrinter(new OutputStreamWriter(out, StandardCharsets.UTF_8), CSVFormat.DEFAULT);
+    }
 
-        @Override
-        public void readFully(byte[] bytes, int start, int len) throws IOException {
-            randomAccessFile.readFully(bytes, start, len);
+    private void exportToArrow(ScanTarget scan, OutputStream outputStream) throws IOException {
+        try (ArrowBatchWriter writer = new ArrowBatchWriter(scan.projection, outputStream)) {
+            scanFile(scan, batch -> {
+                long start = System.nanoTime();
+                writer.write(batch);
+                scan.metrics.recordEncode("arrow", System.nanoTime() - start);
+            });
+            writer.finish();
         }
+    }
 
-        @Override
-        public int read(ByteBuffer byteBuffer) throws IOException {
-            byte[] buffer = new byte[byteBuffer.remaining()];
-            int bytesRead = randomAccessFile.read(buffer);
-            if (bytesRead > 0) {
-                byteBuffer.put(buffer, 0, bytesRead);
+    private void exportToExcel(ScanTarget scan, OutputStream outputStream) throws IOException {
+        // Without a filter the footer gives the exact size, so oversized exports fail before any work
+        if (scan.filter == null) {
+            long rows = 0;
+            for (BlockMetaData block : scan.blocks) {
+                rows += block.getRowCount();
+            }
+            long maxRows = ExcelExportWriter.maxRows(exportConfig, scan.projection.getFieldCount());
+            if (rows > maxRows) {
+                throw new IllegalArgumentException("Excel export is limited to " + maxRows + " rows for this many "
+                        + "columns and the file has " + rows + "; use CSV or narrow the columns/filter");
             }
-            return bytesRead;
         }
 
-        @Override
-        public void readFully(ByteBuffer byteBuffer) throws IOException {
-            byte[] buffer = new byte[byteBuffer.remaining()];
-            randomAccessFile.readFully(buffer);
-            byteBuffer.put(buffer);
+        try (ExcelExportWriter writer = new ExcelExportWriter(scan.projection, exportConfig)) {
+            scanFile(scan, batch -> {
+                long start = System.nanoTime();
+                writer.write(batch);
+                scan.metrics.recordEncode("xlsx", System.nanoTime() - start);
+            });
+            long start = System.nanoTime();
+            writer.finish(outputStream);
+            scan.metrics.recordEncode("xlsx", System.nanoTime() - start);
         }
     }
 }
@@ -0,0 +1,282 @@
+package com.parquetviewer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.parquetviewer.config.ProfileConfig;
+import com.parquetviewer.io.S3InputFile;
+import com.parquetviewer.metrics.ParquetMetrics;
+import com.parquetviewer.model.ColumnProfile;
+import com.parquetviewer.model.FileProfile;
+import com.parquetviewer.model.ParquetFile;
+import com.parquetviewer.profile.ColumnProfiler;
+import com.parquetviewer.reader.ColumnVector;
+import com.parquetviewer.reader.RowBatch;
+import com.parquetviewer.reader.VectorizedParquetReader;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.parquet.ParquetReadOptions;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.Type;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Profiles every flat primitive column of a file in one background scan and keeps the
+ * result on local disk under the object's ETag, so metadata requests serve it without
+ * touching row data. Column chunks are decoded in parallel on the scan pool, each into
+ * its own {@link ColumnProfiler}, and merged per column as they finish.
+ */
+@Service
+@Slf4j
+public class ProfileService {
+
+    private static final int MAX_CACHED_PROFILES = 1024;
+
+    private final FileCatalogService catalog;
+    private final ParquetFooterReader footerReader;
+    private final ScanScheduler scanScheduler;
+    private final ObjectMapper objectMapper;
+    private final ProfileConfig profileConfig;
+    private final Path directory;
+    private final ExecutorService executor;
+    private final Map<String, FileProfile> jobs = new ConcurrentHashMap<>();
+    private final Map<String, FileProfile> completed = new LinkedHashMap<String, FileProfile>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FileProfile> eldest) {
+            return size() > MAX_CACHED_PROFILES;
+        }
+    };
+
+    @Autowired
+    public ProfileService(FileCatalogService catalog, ParquetFooterReader footerReader, ScanScheduler scanScheduler,
+                          ObjectMapper objectMapper, ProfileConfig profileConfig, ParquetMetrics metrics)
+            throws IOException {
+        this.catalog = catalog;
+        this.footerReader = footerReader;
+        this.scanScheduler = scanScheduler;
+        this.objectMapper = objectMapper;
+        this.profileConfig = profileConfig;
+        this.directory = Paths.get(profileConfig.getDirectory());
+        Files.createDirectories(directory);
+        metrics.monitorDirectory("profile", directory);
+        // Profiles survive restarts; only half-written ones are discarded
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().matches("[0-9a-f]{16}\\.json\\.part"))
+                    .forEach(this::deleteQuietly);
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, profileConfig.getJobThreads()), r -> {
+            Thread thread = new Thread(r, "profile-job-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // The finished profile, else the state of its job, else null when it was never requested
+    public FileProfile getProfile(String fileId) {
+        ParquetFile file = catalog.getFile(fileId);
+        String key = keyFor(file);
+        FileProfile profile = loadCompleted(key);
+        return profile != null ? profile : jobs.get(key);
+    }
+
+    // Queues a profile of the current object version unless one exists or is in progress
+    public FileProfile startProfile(String fileId) {
+        return start(catalog.getFile(fileId), true);
+    }
+
+    /**
+     * Returns the finished profile of this object version for the metadata view, or null.
+     * With auto-start enabled a missing profile is queued, but a failed one is not retried.
+     */
+    FileProfile lookup(ParquetFile file) {
+        FileProfile profile = loadCompleted(keyFor(file));
+        if (profile == null && profileConfig.isAutoStart()) {
+            profile = start(file, false);
+        }
+        return profile;
+    }
+
+    private FileProfile start(ParquetFile file, boolean retryFailed) {
+        String key = keyFor(file);
+        FileProfile done = loadCompleted(key);
+        if (done != null) {
+            return done;
+        }
+        synchronized (jobs) {
+            FileProfile existing = jobs.get(key);
+            if (existing != null && (existing.getStatus() != FileProfile.Status.FAILED || !retryFailed)) {
+                return existing;
+            }
+            FileProfile pending = status(file, FileProfile.Status.PENDING, null);
+            jobs.put(key, pending);
+            executor.submit(() -> run(key, file));
+            log.info("Queued profile of {}", file.getName());
+            return pending;
+        }
+    }
+
+    private void run(String key, ParquetFile file) {
+        String startedAt = Instant.now().toString();
+        FileProfile running = status(file, FileProfile.Status.RUNNING, null);
+        running.setStartedAt(startedAt);
+        jobs.put(key, running);
+        try {
+            FileProfile profile = profile(file);
+            profile.setStartedAt(startedAt);
+            profile.setCompletedAt(Instant.now().toString());
+            store(key, profile);
+            jobs.remove(key);
+            log.info("Profiled {} columns of {} ({} rows)", profile.getColumns().size(), file.getName(),
+                    profile.getRowCount());
+        } catch (Exception e) {
+            log.error("Profile of {} failed", file.getName(), e);
+            FileProfile failed = status(file, FileProfile.Status.FAILED, e.getMessage());
+            failed.setStartedAt(startedAt);
+            failed.setCompletedAt(Instant.now().toString());
+            jobs.put(key, failed);
+        }
+    }
+
+    private FileProfile profile(ParquetFile file) throws IOException {
+        S3InputFile inputFile = catalog.openInputFile(file);
+        org.apache.parquet.hadoop.metadata.ParquetMetadata footer = footerReader.readFooter(inputFile);
+        MessageType schema = footer.getFileMetaData().getSchema();
+        List<BlockMetaData> blocks = footer.getBlocks();
+
+        List<Type> fields = new ArrayList<>();
+        for (Type field : schema.getFields()) {
+            if (ColumnVector.kindOf(field) != ColumnVector.Kind.OBJECT) {
+                fields.add(field);
+            }
+        }
+        ColumnProfiler[] profilers = new ColumnProfiler[fields.size()];
+        for (int c = 0; c < profilers.length; c++) {
+            profilers[c] = newProfiler(fields.get(c), 0);
+        }
+
+        // One task per column chunk, numbered row group first, so the chunks in flight sit close together in the file
+        int columns = fields.size();
+        scanScheduler.scanUnordered(blocks.size() * columns,
+                task -> {
+                    Type field = fields.get(task % columns);
+                    BlockMetaData block = blocks.get(task / columns);
+                    ColumnProfiler profiler = newProfiler(field, task + 1);
+                    ParquetReadOptions options = ParquetReadOptions.builder()
+                            .withRange(block.getStartingPos(), block.getStartingPos() + block.getCompressedSize())
+                            .build();
+                    try (VectorizedParquetReader reader = new VectorizedParquetReader(inputFile,
+                            new MessageType(schema.getName(), field), VectorizedParquetReader.DEFAULT_BATCH_SIZE,
+                            options)) {
+                        RowBatch batch;
+                        while ((batch = reader.nextBatch()) != null) {
+                            profiler.add(batch.column(0), batch.size());
+                        }
+                    }
+                    return profiler;
+                },
+                (task, profiler) -> profilers[task % columns].merge(profiler));
+
+        long rowCount = 0;
+        for (BlockMetaData block : blocks) {
+            rowCount += block.getRowCount();
+        }
+        List<ColumnProfile> columnProfiles = new ArrayList<>();
+        for (ColumnProfiler profiler : profilers) {
+            columnProfiles.add(profiler.toProfile(profileConfig.getTopValues(), profileConfig.getHistogramBuckets()));
+        }
+        FileProfile profile = status(file, FileProfile.Status.COMPLETED, null);
+        profile.setRowCount(rowCount);
+        profile.setColumns(columnProfiles);
+        log.debug("Profile of {} fetched {} bytes in {} requests", file.getName(), inputFile.getBytesFetched(),
+                inputFile.getRequestCount());
+        return profile;
+    }
+
+    private ColumnProfiler newProfiler(Type field, long seed) {
+        return new ColumnProfiler(field.getName(), field.asPrimitiveType().getPrimitiveTypeName().name(),
+                ColumnVector.kindOf(field), profileConfig.getMaxTrackedValues(), profileConfig.getSampleSize(), seed);
+    }
+
+    private FileProfile status(ParquetFile file, FileProfile.Status status, String error) {
+        FileProfile profile = new FileProfile();
+        profile.setFileId(file.getId());
+        profile.setEtag(file.getEtag());
+        profile.setStatus(status);
+        profile.setError(error);
+        return profile;
+    }
+
+    // Written under a temporary name and renamed, so a stored profile is always complete
+    private void store(String key, FileProfile profile) throws IOException {
+        Path part = directory.resolve(key + ".json.part");
+        try (OutputStream out = Files.newOutputStream(part)) {
+            objectMapper.writeValue(out, profile);
+        }
+        Files.move(part, directory.resolve(key + ".json"),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        synchronized (completed) {
+            completed.put(key, profile);
+        }
+    }
+
+    private FileProfile loadCompleted(String key) {
+        synchronized (completed) {
+            FileProfile profile = completed.get(key);
+            if (profile != null) {
+                return profile;
+            }
+        }
+        Path path = directory.resolve(key + ".json");
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            FileProfile profile = objectMapper.readValue(path.toFile(), FileProfile.class);
+            synchronized (completed) {
+                completed.put(key, profile);
+            }
+            return profile;
+        } catch (IOException e) {
+            log.warn("Discarding unreadable profile {}", path, e);
+            deleteQuietly(path);
+            return null;
+        }
+    }
+
+    // A new ETag means a new object version, which gets a profile of its own
+    private static String keyFor(ParquetFile file) {
+        return FileCatalogService.idFor(file.getId() + "\n" + file.getEtag());
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete {}", path, e);
+        }
+    }
+}
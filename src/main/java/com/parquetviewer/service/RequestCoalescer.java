@@ -0,0 +1,88 @@
+package com.parquetviewer.service;
+
+import com.parquetviewer.config.AdmissionConfig;
+import com.parquetviewer.metrics.ParquetMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for read results. While a computation for a key is running, identical
+ * requests wait for its result instead of starting their own, so a burst of users opening
+ * the same file costs one footer read and one scan. Nothing is kept once it completes;
+ * caching of bytes and footers stays with the caches below.
+ *
+ * Joiners wait at most {@code sharedWaitTimeoutMs}; if the first request is still running
+ * by then they are refused with {@link TooManyRequestsException}, so one hung read cannot
+ * hold every identical request with it.
+ */
+@Component
+@Slf4j
+public class RequestCoalescer {
+
+    private final AdmissionConfig admissionConfig;
+    private final ParquetMetrics metrics;
+    private final Map<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RequestCoalescer(AdmissionConfig admissionConfig, ParquetMetrics metrics) {
+        this.admissionConfig = admissionConfig;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Runs {@code computation}, or joins the one already running for {@code key}. Keys must
+     * hold every argument the result depends on, and results are shared between callers,
+     * so they must not be modified.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T share(String endpoint, Object key, Supplier<T> computation) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, result);
+        if (existing != null) {
+            metrics.countCoalesced(endpoint);
+            return (T) await(endpoint, key, existing);
+        }
+        try {
+            T value = computation.get();
+            result.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, result);
+        }
+    }
+
+    private Object await(String endpoint, Object key, CompletableFuture<Object> result) {
+        try {
+            return result.get(admissionConfig.getSharedWaitTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            metrics.countRejected(endpoint);
+            log.warn("Refused {} read of {}: the identical read in flight did not finish within {} ms",
+                    endpoint, key, admissionConfig.getSharedWaitTimeoutMs());
+            throw new TooManyRequestsException("Timed out waiting for an identical read in flight",
+                    admissionConfig.getRetryAfterSeconds());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a shared read", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException("Shared read failed", cause);
+        }
+    }
+}
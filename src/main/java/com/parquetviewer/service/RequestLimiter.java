@@ -0,0 +1,176 @@
+package com.parquetviewer.service;
+
+import com.parquetviewer.config.AdmissionConfig;
+import com.parquetviewer.metrics.ParquetMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control for reads of a file or dataset.
+ *
+ * A read holds one slot of its file and one of the global pool while it runs. Slots are
+ * handed out first come, first served; requests beyond the limits wait in a bounded queue
+ * for up to {@code queueTimeoutMs}, and once the queue is full or the wait runs out they
+ * are refused with {@link TooManyRequestsException}. A burst against one file therefore
+ * queues on that file's slots without taking the global pool away from other files.
+ *
+ * Streamed responses hold their slot until the client has received everything, so they
+ * are admitted from a separate pool: slow consumers can only use up stream slots, never
+ * the ones metadata and page reads of the same file need.
+ */
+@Component
+@Slf4j
+public class RequestLimiter {
+
+    private final AdmissionConfig admissionConfig;
+    private final ParquetMetrics metrics;
+    private final Pool reads;
+    private final Pool streams;
+
+    @Autowired
+    public RequestLimiter(AdmissionConfig admissionConfig, ParquetMetrics metrics) {
+        this.admissionConfig = admissionConfig;
+        this.metrics = metrics;
+        this.reads = new Pool("reads", admissionConfig.getMaxConcurrent(), admissionConfig.getMaxConcurrentPerFile());
+        this.streams = new Pool("streams", admissionConfig.getMaxConcurrentStreams(),
+                admissionConfig.getMaxConcurrentStreamsPerFile());
+    }
+
+    /**
+     * Waits for a read slot of {@code key} and of the global pool. Close the permit to release both.
+     */
+    public Permit acquire(String endpoint, String key) {
+        return reads.acquire(endpoint, key);
+    }
+
+    // Same as acquire, from the pool of responses streamed to the client as they are read
+    public Permit acquireStream(String endpoint, String key) {
+        return streams.acquire(endpoint, key);
+    }
+
+    // One file's semaphore, dropped once no request holds or waits for it
+    private static final class FileSlots {
+        final Semaphore permits;
+        int users;
+
+        FileSlots(int permits) {
+            this.permits = new Semaphore(permits, true);
+        }
+    }
+
+    private final class Pool {
+        private final String name;
+        private final int perFile;
+        private final Semaphore global;
+        private final Map<String, FileSlots> files = new ConcurrentHashMap<>();
+        private final AtomicInteger queued = new AtomicInteger();
+
+        Pool(String name, int maxConcurrent, int perFile) {
+            this.name = name;
+            this.perFile = Math.max(1, perFile);
+            this.global = new Semaphore(Math.max(1, maxConcurrent), true);
+            metrics.monitorQueue(name, queued);
+        }
+
+        Permit acquire(String endpoint, String key) {
+            FileSlots slots = enter(key);
+            boolean fileHeld = false;
+            boolean admitted = false;
+            try {
+                // A zero timeout keeps the semaphores' fairness, so new requests never overtake waiting ones
+                fileHeld = slots.permits.tryAcquire(0, TimeUnit.NANOSECONDS);
+                admitted = fileHeld && global.tryAcquire(0, TimeUnit.NANOSECONDS);
+                if (!admitted) {
+                    if (queued.incrementAndGet() > admissionConfig.getMaxQueued()) {
+                        queued.decrementAndGet();
+                        throw reject(endpoint, key, "queue is full");
+                    }
+                    long deadline = System.nanoTime()
+                            + TimeUnit.MILLISECONDS.toNanos(admissionConfig.getQueueTimeoutMs());
+                    try {
+                        if (!fileHeld) {
+                            fileHeld = slots.permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                            if (!fileHeld) {
+                                throw reject(endpoint, key, "timed out waiting for the file");
+                            }
+                        }
+                        admitted = global.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        if (!admitted) {
+                            throw reject(endpoint, key, "timed out waiting for the service");
+                        }
+                    } finally {
+                        queued.decrementAndGet();
+                    }
+                }
+                return new Permit(this, key, slots);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TooManyRequestsException("Interrupted while waiting to read " + key,
+                        admissionConfig.getRetryAfterSeconds());
+            } finally {
+                if (!admitted) {
+                    if (fileHeld) {
+                        slots.permits.release();
+                    }
+                    leave(key);
+                }
+            }
+        }
+
+        void release(String key, FileSlots slots) {
+            global.release();
+            slots.permits.release();
+            leave(key);
+        }
+
+        private FileSlots enter(String key) {
+            return files.compute(key, (k, slots) -> {
+                if (slots == null) {
+                    slots = new FileSlots(perFile);
+                }
+                slots.users++;
+                return slots;
+            });
+        }
+
+        private void leave(String key) {
+            files.computeIfPresent(key, (k, slots) -> --slots.users == 0 ? null : slots);
+        }
+
+        private TooManyRequestsException reject(String endpoint, String key, String reason) {
+            metrics.countRejected(endpoint);
+            log.warn("Refused {} read of {} ({}): {}", endpoint, key, name, reason);
+            return new TooManyRequestsException("Too many concurrent reads of " + key + ": " + reason,
+                    admissionConfig.getRetryAfterSeconds());
+        }
+    }
+
+    public static final class Permit implements AutoCloseable {
+        private final Pool pool;
+        private final String key;
+        private final FileSlots slots;
+        private boolean released;
+
+        private Permit(Pool pool, String key, FileSlots slots) {
+            this.pool = pool;
+            this.key = key;
+            this.slots = slots;
+        }
+
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            pool.release(key, slots);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.parquetviewer.service;
+
+import com.parquetviewer.config.ScanConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs per-row-group work for full scans on one shared, bounded pool.
+ *
+ * Each scan keeps at most {@code maxParallelismPerRequest} groups in flight, so a
+ * large export occupies a fixed share of the pool instead of queueing its whole file
+ * ahead of everyone else, and only that many decoded groups are held in memory.
+ * Callers block while the pool works, so tasks must never schedule nested scans.
+ * Streamed scans, whose workers wait for a client, decode on a second pool.
+ */
+@Component
+@Slf4j
+public class ScanScheduler {
+
+    private final ExecutorService executor;
+    private final ExecutorService streamExecutor;
+    private final int maxParallelism;
+    private final int bufferedChunks;
+
+    @Autowired
+    public ScanScheduler(ScanConfig scanConfig) {
+        int threads = scanConfig.getThreads() > 0
+                ? scanConfig.getThreads()
+                : Runtime.getRuntime().availableProcessors();
+        this.maxParallelism = Math.max(1, Math.min(scanConfig.getMaxParallelismPerRequest(), threads));
+        this.bufferedChunks = Math.max(1, scanConfig.getBufferedChunksPerGroup());
+        int streamThreads = scanConfig.getStreamThreads() > 0
+                ? scanConfig.getStreamThreads()
+                : Runtime.getRuntime().availableProcessors();
+        this.executor = newPool("scan-", threads);
+        this.streamExecutor = newPool("scan-stream-", streamThreads);
+        log.info("Row-group scan pool: {} threads, {} per request; {} stream threads",
+                threads, maxParallelism, streamThreads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        streamExecutor.shutdownNow();
+    }
+
+    private static ExecutorService newPool(String prefix, int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, prefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public interface GroupTask<T> {
+        T run(int group) throws IOException;
+    }
+
+    public interface GroupSink<T> {
+        void accept(int group, T result) throws IOException;
+    }
+
+    // Produces one group's output piece by piece
+    public interface ChunkTask<T> {
+        void run(int group, ChunkSink<T> out) throws IOException;
+    }
+
+    public interface ChunkSink<T> {
+        void accept(T chunk) throws IOException;
+    }
+
+    /**
+     * Runs {@code task} for every group and hands the results to {@code sink} on the
+     * calling thread in group order. Later groups are decoded while earlier ones are consumed.
+     */
+    public <T> void scanOrdered(int groups, GroupTask<T> task, GroupSink<T> sink) throws IOException {
+        Deque<Future<T>> inFlight = new ArrayDeque<>();
+        int next = 0;
+        try {
+            for (int group = 0; group < groups; group++) {
+                while (next < groups && inFlight.size() < maxParallelism) {
+                    int submitted = next++;
+                    inFlight.addLast(executor.submit(() -> task.run(submitted)));
+                }
+                sink.accept(group, await(inFlight.removeFirst()));
+            }
+        } finally {
+            cancelAll(inFlight);
+        }
+    }
+
+    /**
+     * Runs {@code task} for every group and hands each result to {@code sink} on the
+     * calling thread as soon as it completes, in whatever order that is.
+     */
+    public <T> void scanUnordered(int groups, GroupTask<T> task, GroupSink<T> sink) throws IOException {
+        CompletionService<GroupResult<T>> completion = new ExecutorCompletionService<>(executor);
+        Deque<Future<GroupResult<T>>> submitted = new ArrayDeque<>();
+        int next = 0;
+        try {
+            for (int done = 0; done < groups; done++) {
+                // Groups submitted but not yet consumed stay within the per-request limit
+                while (next < groups && next - done < maxParallelism) {
+                    int group = next++;
+                    submitted.addLast(completion.submit(() -> new GroupResult<>(group, task.run(group))));
+                }
+                GroupResult<T> result = await(take(completion));
+                sink.accept(result.group, result.value);
+            }
+        } finally {
+            cancelAll(submitted);
+        }
+    }
+
+    /**
+     * Like {@link #scanOrdered}, but each group hands its output over chunk by chunk and may
+     * only run {@code bufferedChunksPerGroup} chunks ahead of the consumer, so a scan holds a
+     * fixed number of chunks however large its row groups are.
+     *
+     * Workers wait for the consumer, and so for the client it writes to, so they run on a
+     * pool of their own and never hold a thread the other scans need. A group the consumer
+     * reaches before any worker has started it is run on the calling thread, so the group
+     * being consumed never waits behind workers blocked on other streams' buffers.
+     */
+    public <T> void streamOrdered(int groups, ChunkTask<T> task, ChunkSink<T> sink) throws IOException {
+        Deque<ChunkQueue<T>> inFlight = new ArrayDeque<>();
+        int next = 0;
+        try {
+            for (int group = 0; group < groups; group++) {
+                while (next < groups && inFlight.size() < maxParallelism) {
+                    ChunkQueue<T> queue = new ChunkQueue<>(next++, bufferedChunks);
+                    queue.future = streamExecutor.submit(() -> queue.produce(task));
+                    inFlight.addLast(queue);
+                }
+                // Stays at the head until consumed, so a failure part way still cancels its worker
+                ChunkQueue<T> current = inFlight.getFirst();
+                if (current.claim()) {
+                    current.future.cancel(false);
+                    task.run(current.group, sink);
+                } else {
+                    current.drainTo(sink);
+                }
+                inFlight.removeFirst();
+            }
+        } finally {
+            for (ChunkQueue<T> queue : inFlight) {
+                queue.future.cancel(true);
+            }
+        }
+    }
+
+    private static <T> Future<T> take(CompletionService<T> completion) throws IOException {
+        try {
+            return completion.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a row group");
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a row group");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException("Row group scan failed", cause);
+        }
+    }
+
+    private static void cancelAll(Deque<? extends Future<?>> futures) {
+        for (Future<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    // One group's chunks on their way from a worker to the consumer, with room for a fixed number
+    private static final class ChunkQueue<T> {
+        private static final Object END = new Object();
+
+        final int group;
+        final Semaphore space;
+        final BlockingQueue<Object> chunks = new LinkedBlockingQueue<>();
+        final AtomicBoolean claimed = new AtomicBoolean();
+        Future<?> future;
+
+        ChunkQueue(int group, int capacity) {
+            this.group = group;
+            this.space = new Semaphore(capacity);
+        }
+
+        // Whoever claims the group first, a worker or the consumer, runs it
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        void produce(ChunkTask<T> task) {
+            if (!claim()) {
+                return;
+            }
+            try {
+                task.run(group, chunk -> {
+                    try {
+                        space.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting for the consumer");
+                    }
+                    chunks.add(chunk);
+                });
+                chunks.add(END);
+            } catch (IOException | RuntimeException | Error e) {
+                // The end markers never wait for space, so a failure always reaches the consumer
+                chunks.add(new ChunkFailure(e));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void drainTo(ChunkSink<T> sink) throws IOException {
+            while (true) {
+                Object item;
+                try {
+                    item = chunks.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for a row group");
+                }
+                if (item == END) {
+                    return;
+                }
+                if (item instanceof ChunkFailure) {
+                    Throwable cause = ((ChunkFailure) item).cause;
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    } else if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw (Error) cause;
+                }
+                space.release();
+                sink.accept((T) item);
+            }
+        }
+    }
+
+    private static final class ChunkFailure {
+        final Throwable cause;
+
+        ChunkFailure(Throwable cause) {
+            this.cause = cause;
+        }
+    }
+
+    private static final class GroupResult<T> {
+        final int group;
+        final T value;
+
+        GroupResult(int group, T value) {
+            this.group = group;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,444 @@
+package com.parquetviewer.service;
+
+import com.parquetviewer.config.SortConfig;
+import com.parquetviewer.metrics.ParquetMetrics;
+import com.parquetviewer.reader.BatchConsumer;
+import com.parquetviewer.reader.ColumnVector;
+import com.parquetviewer.reader.RowBatch;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Orders rows by one column without holding the file in memory.
+ *
+ * Pages that end within {@code topKRows} are answered by a bounded top-K pass over the
+ * key column. Deeper pages use a sort index: each row group's keys are sorted and spilled
+ * to local disk as a run, the runs are k-way merged into a file of row numbers, and that
+ * file is kept per (file version, column) so later pages are a single positional read.
+ * Concurrent requests for the same index share one build.
+ */
+@Component
+@Slf4j
+public class SortEngine {
+
+    private static final int RUN_BLOCK_SIZE = 1024;
+    private static final int IO_BUFFER_BYTES = 64 * 1024;
+
+    // Only files this engine wrote are ever deleted from the sort directory
+    private static final Pattern SORT_FILE = Pattern.compile("[0-9a-f]{16}\\.idx(\\.part)?|[0-9a-f-]{36}\\.run");
+
+    private final ScanScheduler scanScheduler;
+    private final SortConfig sortConfig;
+    private final Path directory;
+    private final LinkedHashMap<String, Long> indexes = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<Path>> building = new ConcurrentHashMap<>();
+    private long indexBytes;
+
+    @Autowired
+    public SortEngine(ScanScheduler scanScheduler, SortConfig sortConfig, ParquetMetrics metrics) throws IOException {
+        this.scanScheduler = scanScheduler;
+        this.sortConfig = sortConfig;
+        this.directory = Paths.get(sortConfig.getDirectory());
+        Files.createDirectories(directory);
+        metrics.monitorDirectory("sort", directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> SORT_FILE.matcher(path.getFileName().toString()).matches())
+                    .forEach(this::deleteQuietly);
+        }
+    }
+
+    // Decodes one row group; the batches must contain the sort key
+    interface GroupReader {
+        void read(int group, BatchConsumer consumer) throws IOException;
+    }
+
+    /**
+     * Returns the file row numbers of rows {@code offset .. offset + count} in sort order.
+     *
+     * @param indexKey  identifies the file version and column the index is cached under
+     * @param groupRows row count of each row group, from the footer
+     * @param reader    reads the key column of a row group as column 0
+     */
+    long[] sortedRows(String indexKey, long[] groupRows, SortRun.KeyType type, boolean ascending,
+                      long offset, int count, GroupReader reader) throws IOException {
+        long[] groupStarts = new long[groupRows.length];
+        long totalRows = 0;
+        for (int i = 0; i < groupRows.length; i++) {
+            groupStarts[i] = totalRows;
+            totalRows += groupRows[i];
+        }
+        long end = Math.min(offset + count, totalRows);
+        if (offset >= end) {
+            return new long[0];
+        }
+        int size = (int) (end - offset);
+        String name = FileCatalogService.idFor(indexKey);
+
+        if (end <= sortConfig.getTopKRows() && !isIndexed(name)) {
+            TopK top = topK(groupRows.length, type, ascending, 0, 0, (int) end, reader);
+            long[] rows = new long[size];
+            for (int i = 0; i < size; i++) {
+                long id = top.run.row((int) offset + i);
+                rows[i] = groupStarts[(int) (id >>> 32)] + (id & 0xFFFFFFFFL);
+            }
+            return rows;
+        }
+
+        // Descending pages are the matching ascending slice read backwards
+        long position = ascending ? offset : totalRows - end;
+        for (int attempt = 0; ; attempt++) {
+            Path index = index(name, groupStarts, type, reader);
+            try {
+                long[] rows = readIndex(index, position, size);
+                if (!ascending) {
+                    reverse(rows);
+                }
+                return rows;
+            } catch (NoSuchFileException e) {
+                // Evicted between lookup and read; build it again once
+                forget(name);
+                if (attempt > 0) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the values of rows {@code offset .. offset + count} in sort order when the
+     * rows cannot be addressed by position, as with a filter. Only the top
+     * {@code offset + count} rows are kept, so the depth is limited to {@code topKRows}.
+     *
+     * @param keyColumn    index of the sort key in each batch
+     * @param valueColumns number of leading batch columns to return per row
+     */
+    List<Object[]> sortedValues(int groups, SortRun.KeyType type, boolean ascending, int keyColumn,
+                                int valueColumns, long offset, int count, GroupReader reader) throws IOException {
+        long end = offset + count;
+        checkTopKDepth(end);
+        TopK top = topK(groups, type, ascending, keyColumn, valueColumns, (int) end, reader);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = (int) offset; i < top.run.size(); i++) {
+            rows.add(top.values.get(top.run.row(i)));
+        }
+        return rows;
+    }
+
+    // Sorted, filtered pages hold their rows in memory, so they are only served within topKRows
+    void checkTopKDepth(long end) {
+        if (end > sortConfig.getTopKRows()) {
+            throw new IllegalArgumentException("Sorted, filtered pages are limited to the first "
+                    + sortConfig.getTopKRows() + " rows; narrow the filter");
+        }
+    }
+
+    // The best {@code limit} rows of a scan; values are kept only when columns are requested
+    private static final class TopK {
+        final SortRun run;
+        final Map<Long, Object[]> values;
+
+        TopK(SortRun run, Map<Long, Object[]> values) {
+            this.run = run;
+            this.values = values;
+        }
+
+        // Sorts, cuts to the limit and drops the values of rows that fell out
+        TopK compact(int limit) {
+            run.sort();
+            run.truncate(limit);
+            return new TopK(run, retain(values, run));
+        }
+
+        static Map<Long, Object[]> retain(Map<Long, Object[]> values, SortRun run) {
+            if (values == null) {
+                return null;
+            }
+            Map<Long, Object[]> kept = new HashMap<>();
+            for (int i = 0; i < run.size(); i++) {
+                kept.put(run.row(i), values.get(run.row(i)));
+            }
+            return kept;
+        }
+    }
+
+    /**
+     * Each row group keeps a buffer of at most twice the limit, cut back to the limit by a
+     * sort whenever it fills, and the groups' survivors are merged as they finish.
+     * Row ids are the group number in the high word and the row within it in the low word.
+     */
+    private TopK topK(int groups, SortRun.KeyType type, boolean ascending, int keyColumn, int valueColumns,
+                      int limit, GroupReader reader) throws IOException {
+        TopK[] merged = { new TopK(new SortRun(type, !ascending, 0), valueColumns > 0 ? new HashMap<>() : null) };
+        scanScheduler.scanUnordered(groups,
+                group -> {
+                    TopK[] top = { new TopK(new SortRun(type, !ascending, 2 * limit),
+                            valueColumns > 0 ? new HashMap<>() : null) };
+                    long[] ordinal = { 0 };
+                    reader.read(group, batch -> {
+                        ColumnVector key = batch.column(keyColumn);
+                        for (int row = 0; row < batch.size(); row++) {
+                            long id = ((long) group << 32) | ordinal[0]++;
+                            top[0].run.append(key, row, id);
+                            if (top[0].values != null) {
+                                top[0].values.put(id, rowValues(batch, row, valueColumns));
+                            }
+                            if (top[0].run.size() >= 2 * limit) {
+                                top[0] = top[0].compact(limit);
+                            }
+                        }
+                    });
+                    return top[0].compact(limit);
+                },
+                (group, top) -> {
+                    SortRun run = SortRun.merge(merged[0].run, top.run, limit);
+                    Map<Long, Object[]> values = null;
+                    if (merged[0].values != null) {
+                        values = new HashMap<>(merged[0].values);
+                        values.putAll(top.values);
+                    }
+                    merged[0] = new TopK(run, TopK.retain(values, run));
+                });
+        return merged[0];
+    }
+
+    private static Object[] rowValues(RowBatch batch, int row, int columns) {
+        Object[] values = new Object[columns];
+        for (int c = 0; c < columns; c++) {
+            values[c] = batch.getValue(c, row);
+        }
+        return values;
+    }
+
+    private synchronized boolean isIndexed(String name) {
+        return indexes.containsKey(name);
+    }
+
+    private Path index(String name, long[] groupStarts, SortRun.KeyType type, GroupReader reader)
+            throws IOException {
+        Path path = directory.resolve(name + ".idx");
+        if (isIndexed(name)) {
+            return path;
+        }
+        CompletableFuture<Path> build = new CompletableFuture<>();
+        CompletableFuture<Path> existing = building.putIfAbsent(name, build);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            if (!isIndexed(name)) {
+                buildIndex(path, groupStarts, type, reader);
+                register(name, Files.size(path));
+            }
+            build.complete(path);
+            return path;
+        } catch (IOException | RuntimeException e) {
+            build.completeExceptionally(e);
+            throw e;
+        } finally {
+            building.remove(name, build);
+        }
+    }
+
+    /**
+     * Sorts each row group into a run on disk, then merges the runs into a file holding
+     * the ascending order as big-endian longs. Only the groups in flight and one block
+     * per run are in memory at a time.
+     */
+    private void buildIndex(Path path, long[] groupStarts, SortRun.KeyType type, GroupReader reader)
+            throws IOException {
+        long started = System.currentTimeMillis();
+        List<Path> runs = Collections.synchronizedList(new ArrayList<>());
+        List<RunCursor> cursors = new ArrayList<>();
+        Path part = directory.resolve(path.getFileName() + ".part");
+        try {
+            scanScheduler.scanUnordered(groupStarts.length,
+                    group -> {
+                        SortRun run = new SortRun(type, false, 0);
+                        long[] row = { groupStarts[group] };
+                        reader.read(group, batch -> {
+                            ColumnVector key = batch.column(0);
+                            for (int i = 0; i < batch.size(); i++) {
+                                run.append(key, i, row[0]++);
+                            }
+                        });
+                        run.sort();
+                        Path runPath = directory.resolve(UUID.randomUUID() + ".run");
+                        runs.add(runPath);
+                        try (DataOutputStream out = new DataOutputStream(
+                                new BufferedOutputStream(Files.newOutputStream(runPath), IO_BUFFER_BYTES))) {
+                            run.write(out);
+                        }
+                        return runPath;
+                    },
+                    (group, runPath) -> { });
+
+            PriorityQueue<RunCursor> queue = new PriorityQueue<>(
+                    Math.max(1, runs.size()), (a, b) -> a.block.compare(a.position, b.block, b.position));
+            for (Path runPath : runs) {
+                RunCursor cursor = new RunCursor(runPath, type);
+                cursors.add(cursor);
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(part), IO_BUFFER_BYTES))) {
+                while (!queue.isEmpty()) {
+                    RunCursor cursor = queue.poll();
+                    out.writeLong(cursor.block.row(cursor.position));
+                    if (cursor.advance()) {
+                        queue.add(cursor);
+                    }
+                }
+            }
+            Files.move(part, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            log.info("Built sort index {} from {} runs in {} ms", path.getFileName(), runs.size(),
+                    System.currentTimeMillis() - started);
+        } finally {
+            for (RunCursor cursor : cursors) {
+                cursor.close();
+            }
+            for (Path runPath : runs) {
+                deleteQuietly(runPath);
+            }
+            deleteQuietly(part);
+        }
+    }
+
+    // Reads a spilled run one block at a time
+    private static final class RunCursor implements Closeable {
+        final DataInputStream in;
+        final SortRun block;
+        int remaining;
+        int position = -1;
+
+        RunCursor(Path path, SortRun.KeyType type) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), IO_BUFFER_BYTES));
+            this.block = new SortRun(type, false, RUN_BLOCK_SIZE);
+            this.remaining = in.readInt();
+        }
+
+        boolean advance() throws IOException {
+            if (++position < block.size()) {
+                return true;
+            }
+            if (remaining == 0) {
+                return false;
+            }
+            int count = Math.min(remaining, RUN_BLOCK_SIZE);
+            block.read(in, count);
+            remaining -= count;
+            position = 0;
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private long[] readIndex(Path index, long position, int count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(count * Long.BYTES);
+        long start = position * Long.BYTES;
+        try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    throw new EOFException("Sort index " + index + " ends before row " + (position + count));
+                }
+            }
+        }
+        buffer.flip();
+        long[] rows = new long[count];
+        buffer.asLongBuffer().get(rows);
+        return rows;
+    }
+
+    // Records a finished index and evicts the least recently used ones over the size cap
+    private synchronized void register(String name, long bytes) {
+        indexes.put(name, bytes);
+        indexBytes += bytes;
+        Iterator<Map.Entry<String, Long>> oldest = indexes.entrySet().iterator();
+        while (indexBytes > sortConfig.getMaxIndexBytes() && indexes.size() > 1) {
+            Map.Entry<String, Long> entry = oldest.next();
+            if (entry.getKey().equals(name)) {
+                continue;
+            }
+            indexBytes -= entry.getValue();
+            oldest.remove();
+            deleteQuietly(directory.resolve(entry.getKey() + ".idx"));
+        }
+    }
+
+    private synchronized void forget(String name) {
+        Long bytes = indexes.remove(name);
+        if (bytes != null) {
+            indexBytes -= bytes;
+        }
+    }
+
+    private static Path await(CompletableFuture<Path> build) throws IOException {
+        try {
+            return build.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a sort index");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Sort index build failed", cause);
+        }
+    }
+
+    private static void reverse(long[] values) {
+        for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+            long tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.parquetviewer.service;
+
+import com.parquetviewer.reader.ColumnVector;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A growable run of (sort key, row id) pairs held in primitive arrays.
+ *
+ * Keys are widened to one of three comparable forms, so every primitive Parquet type
+ * sorts with the same code. Ascending order puts nulls last and breaks ties by row id;
+ * descending order is exactly the reverse, so a cached ascending index serves both.
+ */
+final class SortRun {
+
+    enum KeyType { LONG, DOUBLE, STRING }
+
+    private final KeyType type;
+    private final boolean descending;
+    private boolean[] nulls;
+    private long[] longKeys;
+    private double[] doubleKeys;
+    private String[] stringKeys;
+    private long[] rows;
+    private int size;
+
+    SortRun(KeyType type, boolean descending, int capacity) {
+        this.type = type;
+        this.descending = descending;
+        int initial = Math.max(16, capacity);
+        this.nulls = new boolean[initial];
+        this.rows = new long[initial];
+        switch (type) {
+            case LONG:
+                longKeys = new long[initial];
+                break;
+            case DOUBLE:
+                doubleKeys = new double[initial];
+                break;
+            default:
+                stringKeys = new String[initial];
+        }
+    }
+
+    static KeyType keyTypeOf(ColumnVector.Kind kind) {
+        switch (kind) {
+            case INT:
+            case LONG:
+            case BOOLEAN:
+                return KeyType.LONG;
+            case FLOAT:
+            case DOUBLE:
+                return KeyType.DOUBLE;
+            case STRING:
+                return KeyType.STRING;
+            default:
+                throw new IllegalArgumentException("Cannot sort on a " + kind + " column");
+        }
+    }
+
+    KeyType getType() {
+        return type;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long row(int index) {
+        return rows[index];
+    }
+
+    void setRow(int index, long row) {
+        rows[index] = row;
+    }
+
+    void append(ColumnVector column, int row, long rowId) {
+        ensureCapacity(size + 1);
+        boolean isNull = column.isNull(row);
+        nulls[size] = isNull;
+        if (!isNull) {
+            switch (column.getKind()) {
+                case INT:
+                    longKeys[size] = column.getInt(row);
+                    break;
+                case LONG:
+                    longKeys[size] = column.getLong(row);
+                    break;
+                case BOOLEAN:
+                    longKeys[size] = column.getBoolean(row) ? 1 : 0;
+                    break;
+                case FLOAT:
+                    doubleKeys[size] = column.getFloat(row);
+                    break;
+                case DOUBLE:
+                    doubleKeys[size] = column.getDouble(row);
+                    break;
+                default:
+                    stringKeys[size] = (String) column.getObject(row);
+            }
+        }
+        rows[size++] = rowId;
+    }
+
+    private void appendFrom(SortRun other, int index) {
+        ensureCapacity(size + 1);
+        nulls[size] = other.nulls[index];
+        switch (type) {
+            case LONG:
+                longKeys[size] = other.longKeys[index];
+                break;
+            case DOUBLE:
+                doubleKeys[size] = other.doubleKeys[index];
+                break;
+            default:
+                stringKeys[size] = other.stringKeys[index];
+        }
+        rows[size++] = other.rows[index];
+    }
+
+    /**
+     * Orders entry {@code i} of this run against entry {@code j} of {@code other}.
+     * Both runs must share a key type and direction.
+     */
+    int compare(int i, SortRun other, int j) {
+        int result;
+        if (nulls[i] || other.nulls[j]) {
+            result = Boolean.compare(nulls[i], other.nulls[j]);
+        } else {
+            switch (type) {
+                case LONG:
+                    result = Long.compare(longKeys[i], other.longKeys[j]);
+                    break;
+                case DOUBLE:
+                    result = Double.compare(doubleKeys[i], other.doubleKeys[j]);
+                    break;
+                default:
+                    result = stringKeys[i].compareTo(other.stringKeys[j]);
+            }
+        }
+        if (result == 0) {
+            result = Long.compare(rows[i], other.rows[j]);
+        }
+        return descending ? -result : result;
+    }
+
+    // Sorts an index permutation, then applies it once to every array
+    void sort() {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        sortIndex(order, 0, size);
+
+        boolean[] sortedNulls = new boolean[size];
+        long[] sortedRows = new long[size];
+        long[] sortedLongs = longKeys == null ? null : new long[size];
+        double[] sortedDoubles = doubleKeys == null ? null : new double[size];
+        String[] sortedStrings = stringKeys == null ? null : new String[size];
+        for (int i = 0; i < size; i++) {
+            int from = order[i];
+            sortedNulls[i] = nulls[from];
+            sortedRows[i] = rows[from];
+            if (sortedLongs != null) {
+                sortedLongs[i] = longKeys[from];
+            } else if (sortedDoubles != null) {
+                sortedDoubles[i] = doubleKeys[from];
+            } else {
+                sortedStrings[i] = stringKeys[from];
+            }
+        }
+        nulls = sortedNulls;
+        rows = sortedRows;
+        longKeys = sortedLongs;
+        doubleKeys = sortedDoubles;
+        stringKeys = sortedStrings;
+    }
+
+    /**
+     * Quicksorts {@code order[from, to)} by the entries its indexes point at. Ties are broken by
+     * row id, so the order is total and an unstable sort gives the same result as a stable one.
+     */
+    private void sortIndex(int[] order, int from, int to) {
+        while (to - from > 16) {
+            int mid = (from + to) >>> 1;
+            int pivot = medianOf(order[from], order[mid], order[to - 1]);
+            int i = from;
+            int j = to - 1;
+            while (i <= j) {
+                while (compare(order[i], this, pivot) < 0) {
+                    i++;
+                }
+                while (compare(order[j], this, pivot) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = order[i];
+                    order[i++] = order[j];
+                    order[j--] = swap;
+                }
+            }
+            // Recurse into the smaller half and loop on the larger to bound the stack depth
+            if (j + 1 - from < to - i) {
+                sortIndex(order, from, j + 1);
+                from = i;
+            } else {
+                sortIndex(order, i, to);
+                to = j + 1;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            int current = order[i];
+            int j = i - 1;
+            while (j >= from && compare(order[j], this, current) > 0) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = current;
+        }
+    }
+
+    private int medianOf(int a, int b, int c) {
+        if (compare(a, this, b) < 0) {
+            return compare(b, this, c) < 0 ? b : compare(a, this, c) < 0 ? c : a;
+        }
+        return compare(a, this, c) < 0 ? a : compare(b, this, c) < 0 ? c : b;
+    }
+
+    // Keeps the first {@code limit} entries of a sorted run
+    void truncate(int limit) {
+        if (limit < size) {
+            if (stringKeys != null) {
+                Arrays.fill(stringKeys, limit, size, null);
+            }
+            size = limit;
+        }
+    }
+
+    // Merges two sorted runs into a new one holding at most {@code limit} entries
+    static SortRun merge(SortRun a, SortRun b, int limit) {
+        SortRun merged = new SortRun(a.type, a.descending, Math.min(limit, a.size + b.size));
+        int i = 0;
+        int j = 0;
+        while (merged.size < limit && (i < a.size || j < b.size)) {
+            if (j >= b.size || (i < a.size && a.compare(i, b, j) <= 0)) {
+                merged.appendFrom(a, i++);
+            } else {
+                merged.appendFrom(b, j++);
+            }
+        }
+        return merged;
+    }
+
+    // Spill format: entry count, then per entry a null flag, the key when present and the row id
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeBoolean(nulls[i]);
+            if (!nulls[i]) {
+                switch (type) {
+                    case LONG:
+                        out.writeLong(longKeys[i]);
+                        break;
+                    case DOUBLE:
+                        out.writeDouble(doubleKeys[i]);
+                        break;
+                    default:
+                        byte[] bytes = stringKeys[i].getBytes(StandardCharsets.UTF_8);
+                        out.writeInt(bytes.length);
+                        out.write(bytes);
+                }
+            }
+            out.writeLong(rows[i]);
+        }
+    }
+
+    // Replaces this run's contents with the next {@code count} entries of a spilled run
+    void read(DataInputStream in, int count) throws IOException {
+        size = 0;
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            nulls[i] = in.readBoolean();
+            if (!nulls[i]) {
+                switch (type) {
+                    case LONG:
+                        longKeys[i] = in.readLong();
+                        break;
+                    case DOUBLE:
+                        doubleKeys[i] = in.readDouble();
+                        break;
+                    default:
+                        byte[] bytes = new byte[in.readInt()];
+                        in.readFully(bytes);
+                        stringKeys[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+            } else if (stringKeys != null) {
+                stringKeys[i] = null;
+            }
+            rows[i] = in.readLong();
+        }
+        size = count;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= rows.length) {
+            return;
+        }
+        int grown = Math.max(capacity, rows.length + (rows.length >> 1));
+        nulls = Arrays.copyOf(nulls, grown);
+        rows = Arrays.copyOf(rows, grown);
+        if (longKeys != null) {
+            longKeys = Arrays.copyOf(longKeys, grown);
+        } else if (doubleKeys != null) {
+            doubleKeys = Arrays.copyOf(doubleKeys, grown);
+        } else {
+            stringKeys = Arrays.copyOf(stringKeys, grown);
+        }
+    }
+}